@@ -0,0 +1,769 @@
+package org.alexn.async;
+
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+/**
+ * The `Async` data type is a lazy `Future`, i.e. a way to describe
+ * asynchronous computations.
+ *
+ * It's described by {@link Async#run(Executor,Callback)}, its characteristic
+ * function. See {@link Async#eval(Supplier)} for how `Async`
+ * values can be built.
+ *
+ * Values built with the provided operations are trees of instructions
+ * (see `AsyncNode`), evaluated by a run-loop (see `RunLoop`), but any
+ * lambda implementing `run` is a valid `Async` as well, being treated
+ * as an asynchronous boundary.
+ */
+@FunctionalInterface
+public interface Async<A> {
+  /**
+   * Characteristic function, triggers the execution.
+   *
+   * The `executor` is used to schedule tasks for execution, however
+   * `map` and `flatMap` driven loops don't need to go through it, as:
+   *
+   *   1. stack safety is provided by the run-loop, which keeps
+   *      continuations on an explicit stack instead of the call-stack
+   *   2. synchronous steps are executed in a tight loop on the current
+   *      thread, the `executor` being used only for starting the loop
+   *      and for the asynchronous boundaries described via
+   *      {@link Async#create(BiConsumer)}
+   *   3. fairness is ensured by the run-loop re-submitting itself to
+   *      the `executor` every couple of steps, as described by the
+   *      {@link ExecutionModel} configured for the `executor`
+   *
+   * @param executor is the thread-pool to use for ensuring fairness and stack-safety.
+   * @param cb is the callback called by the async process when the result is ready.
+   */
+  void run(Executor executor, Callback<A> cb);
+
+  /**
+   * Like {@link Async#run(Executor, Callback)}, triggers the execution,
+   * but also returns a token that can be used for canceling it.
+   *
+   * Cancellation stops the execution before its next step and is
+   * propagated to the running async boundaries, e.g. the tasks started
+   * by {@link Async#parallel(List)}, or the futures started by
+   * {@link Async#fromFuture(Supplier)}. Once canceled, the callback
+   * doesn't get called anymore.
+   *
+   * `Async` implementations not built with the provided operations
+   * aren't cancelable by default, returning {@link Cancelable#EMPTY}.
+   */
+  default Cancelable runCancelable(Executor executor, Callback<A> cb) {
+    run(executor, cb);
+    return Cancelable.EMPTY;
+  }
+
+  /**
+   * Converts this `Async` to a Java `CompletableFuture`, triggering
+   * the computation in the process.
+   *
+   * Canceling the returned future cancels the computation.
+   */
+  default CompletableFuture<A> toFuture(Executor executor) {
+    final CompletableFuture<A> future = new CompletableFuture<>();
+    final Cancelable token = runCancelable(executor, new Callback<A>() {
+      @Override
+      public void onSuccess(A value) {
+        future.complete(value);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    future.whenComplete((value, e) -> {
+      if (e instanceof CancellationException) token.cancel();
+    });
+    return future;
+  }
+
+  /**
+   * Converts this `Async` to a Reactive Streams `Publisher`, emitting
+   * the result as a single element, followed by `onComplete`.
+   *
+   * The computation gets triggered by each subscription, its result
+   * held until requested, and canceled by `cancel()`. Errors get
+   * signaled without demand. A `null` result makes for an empty
+   * publisher, as `null` elements aren't allowed.
+   *
+   * For `java.util.concurrent.Flow` interop, see `FlowAdapters`.
+   */
+  default Publisher<A> toPublisher(Executor executor) {
+    return ReactiveStreams.toPublisher(this, executor);
+  }
+
+  /**
+   * Given a mapping function, returns a new `Async` value with the
+   * result of the source transformed with it.
+   *
+   * <pre>
+   * {@code
+   * Async<Integer> fa = Async.eval(() -> 1 + 1)
+   *
+   * Async<Integer> fb = fa.map(a -> a * 2)
+   *
+   * Async<String> fc = fb.map(x -> x.toString())
+   * }
+   * </pre>
+   *
+   * As a piece of trivia, this function describes a Functor, see:
+   * <a href="https://en.wikipedia.org/wiki/Functor">Functor</a>.
+   *
+   * The transformation is executed by the run-loop synchronously,
+   * on the thread that produced the source's result. Consecutive
+   * `map` calls are fused, being executed as a single step.
+   */
+  default <B> Async<B> map(Function<A, B> f) {
+    return new AsyncNode.Map<>(this, f, 0);
+  }
+
+  /**
+   * Given a mapping function that returns another async result,
+   * returns a new `Async` value with the result of the source transformed.
+   *
+   * <pre>
+   * {@code
+   * Async<Integer> fa = Async.eval(() -> 1 + 1)
+   *
+   * Async<Integer> fb = fa.flatMap(a -> Async.eval(() -> a * 2))
+   *
+   * Async<String> fc = fb.flatMap(x -> Async.eval(() -> x.toString()))
+   * }
+   * </pre>
+   *
+   * As a piece of trivia, this is the "monadic bind", see:
+   * <a href="https://en.wikipedia.org/wiki/Monad_(functional_programming)">Monad</a>.
+   *
+   * The continuation is executed by the run-loop synchronously, so
+   * `flatMap` driven loops are stack-safe without forcing executor hops.
+   */
+  default <B> Async<B> flatMap(Function<A, Async<B>> f) {
+    return new AsyncNode.FlatMap<>(this, f);
+  }
+
+  /**
+   * Returns a new `Async` that executes the source on the given
+   * `Executor`, the execution returning to the original `Executor`
+   * once the source completes.
+   *
+   * <pre>
+   * {@code
+   * Async<Image> fa = Async.eval(() -> resize(image)).evalOn(Schedulers.compute())
+   * }
+   * </pre>
+   *
+   * Canceling the execution cancels the source.
+   */
+  default Async<A> evalOn(Executor ec) {
+    return cancelable((executor, cb) -> runCancelable(ec, new Callback<A>() {
+      @Override
+      public void onSuccess(A value) {
+        executor.execute(() -> cb.onSuccess(value));
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        executor.execute(() -> cb.onError(e));
+      }
+    }));
+  }
+
+  /**
+   * Returns a new `Async` that delays the execution of the source
+   * by the given `duration`, see {@link Async#sleep(Duration)}.
+   */
+  default Async<A> delayExecution(Duration duration) {
+    return sleep(duration).flatMap(ignored -> this);
+  }
+
+  /**
+   * Returns a new `Async` that retries the source on failure, as
+   * described by the given `policy`, see
+   * {@link Async#retry(RetryPolicy, Scheduler)}.
+   */
+  default Async<A> retry(RetryPolicy policy) {
+    return retry(policy, Scheduler.global());
+  }
+
+  /**
+   * Returns a new `Async` that retries the source on failure, as
+   * described by the given `policy`.
+   *
+   * <pre>
+   * {@code
+   * Async<Response> fa = Async.fromFuture(() -> client.call(request))
+   *   .retry(RetryPolicy.exponentialBackoff(Duration.ofMillis(10), Duration.ofSeconds(1)))
+   * }
+   * </pre>
+   *
+   * Each attempt executes the source from scratch, so for example
+   * `fromFuture` calls its supplier again. The error of the last
+   * attempt gets signaled when the attempts are exhausted, or when the
+   * error isn't retriable, or when the retry budget is exhausted.
+   *
+   * @param scheduler is used for the delays between attempts, without
+   *                  blocking any threads
+   */
+  default Async<A> retry(RetryPolicy policy, Scheduler scheduler) {
+    return Retry.apply(this, policy, scheduler);
+  }
+
+  /**
+   * Returns a new `Async` that signals a `TimeoutException` in case the
+   * source doesn't complete within the given `after` duration, see
+   * {@link Async#timeoutTo(Duration, Async, Scheduler)}.
+   */
+  default Async<A> timeout(Duration after) {
+    return timeoutTo(after, defer(() -> raiseError(
+      new TimeoutException("Async timed-out after " + after))));
+  }
+
+  /**
+   * Returns a new `Async` that switches to the `fallback` in case the
+   * source doesn't complete within the given `after` duration, see
+   * {@link Async#timeoutTo(Duration, Async, Scheduler)}.
+   */
+  default Async<A> timeoutTo(Duration after, Async<A> fallback) {
+    return timeoutTo(after, fallback, Scheduler.global());
+  }
+
+  /**
+   * Returns a new `Async` that switches to the `fallback` in case the
+   * source doesn't complete within the given `after` duration.
+   *
+   * <pre>
+   * {@code
+   * Async<String> fa = fetch(url).timeoutTo(
+   *   Duration.ofSeconds(1),
+   *   Async.pure("default"),
+   *   scheduler)
+   * }
+   * </pre>
+   *
+   * On timeout the source gets canceled, whereas the timer gets canceled
+   * in case the source completes in time.
+   *
+   * @param scheduler is used for the timer, the `fallback` being started
+   *                  on the `Executor` given to `run`
+   */
+  default Async<A> timeoutTo(Duration after, Async<A> fallback, Scheduler scheduler) {
+    final Async<A> source = this;
+    return cancelable((executor, cb) -> {
+      final AtomicBoolean isActive = new AtomicBoolean(true);
+      // Source, timer, fallback
+      final CompositeCancelable tokens = new CompositeCancelable(3);
+
+      tokens.set(1, scheduler.schedule(after.toNanos(), TimeUnit.NANOSECONDS, () ->
+        executor.execute(() -> {
+          if (isActive.compareAndSet(true, false)) {
+            tokens.cancel(0);
+            tokens.set(2, fallback.runCancelable(executor, cb));
+          }
+        })));
+
+      tokens.set(0, source.runCancelable(executor, new Callback<A>() {
+        @Override
+        public void onSuccess(A value) {
+          if (isActive.compareAndSet(true, false)) {
+            tokens.cancel(1);
+            cb.onSuccess(value);
+          }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          if (isActive.compareAndSet(true, false)) {
+            tokens.cancel(1);
+            cb.onError(e);
+          }
+        }
+      }));
+      return tokens;
+    });
+  }
+
+  /**
+   * Returns a new `Async` that executes the source only once, on
+   * first execution, every execution signaling the same result.
+   *
+   * Executions that happen while the source is in flight are waiting
+   * for its result, via a lock-free list of subscribers, being resumed
+   * on their own `Executor`. Errors are memoized as well.
+   *
+   * Canceling an execution doesn't cancel the source, which is shared.
+   *
+   * <pre>
+   * {@code
+   * Async<Config> config = Async.fromFuture(() -> loadConfig()).memoize()
+   * }
+   * </pre>
+   */
+  default Async<A> memoize() {
+    return Memoized.memoize(this);
+  }
+
+  /**
+   * Like {@link Async#memoize()}, except that the result expires after
+   * the given `ttl`, the next execution refreshing it. Errors aren't
+   * cached, being retried on the next execution.
+   *
+   * A single refresh is in flight at any point in time, with concurrent
+   * executions waiting for it.
+   *
+   * <pre>
+   * {@code
+   * Async<Token> token = fetchToken().cached(Duration.ofMinutes(5))
+   * }
+   * </pre>
+   */
+  default Async<A> cached(Duration ttl) {
+    return Memoized.cached(this, ttl);
+  }
+
+  /**
+   * Executes the two `Async` values in parallel, executing the given function for
+   * producing a final result.
+   *
+   * <pre>
+   * {@code
+   * Async<Integer> fa = Async.eval(() -> 1 + 1)
+   *
+   * Async<Integer> fb = Async.eval(() -> 2 + 2)
+   *
+   * // Should yield 6
+   * Async<Integer> fc = Async.parMap2(fa, fb, (a, b) -> a + b)
+   * }
+   * </pre>
+   *
+   * Both `fa` and `fb` are started on the `Executor`, the final result
+   * being calculated by whichever of the two completes last. On the first
+   * error the result is an error, the other task being canceled.
+   *
+   * @param f is the function used to transform the final result
+   */
+  static <A, B, C> Async<C> parMap2(Async<A> fa, Async<B> fb, BiFunction<A, B, C> f) {
+    return cancelable((executor, cb) -> {
+      final Object[] results = new Object[2];
+      final AtomicInteger remaining = new AtomicInteger(2);
+      final CompositeCancelable tokens = new CompositeCancelable(2);
+      @SuppressWarnings("unchecked")
+      final Runnable complete = () -> {
+        final C value;
+        try {
+          value = f.apply((A) results[0], (B) results[1]);
+        } catch (Exception e) {
+          cb.onError(e);
+          return;
+        }
+        cb.onSuccess(value);
+      };
+
+      tokens.set(0, fa.runCancelable(executor, new Callback<A>() {
+        @Override
+        public void onSuccess(A value) {
+          results[0] = value;
+          if (remaining.decrementAndGet() == 0) complete.run();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          tokens.cancel();
+          cb.onError(e);
+        }
+      }));
+
+      tokens.set(1, fb.runCancelable(executor, new Callback<B>() {
+        @Override
+        public void onSuccess(B value) {
+          results[1] = value;
+          if (remaining.decrementAndGet() == 0) complete.run();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          tokens.cancel();
+          cb.onError(e);
+        }
+      }));
+      return tokens;
+    });
+  }
+
+  /**
+   * Given a list of `Async` values, processes all of them and returns the
+   * final result as a list.
+   *
+   * Execution of the given list is sequential (not parallel), being
+   * driven by the run-loop, so tasks that complete synchronously are
+   * executed inline, in constant stack space, with the results being
+   * accumulated in a list preallocated with the right size.
+   */
+  static <A> Async<List<A>> sequence(List<Async<A>> list) {
+    return Sequence.apply(list);
+  }
+
+  /**
+   * Given a list of `Async` values, processes all of them in parallel and
+   * returns the final result as a list.
+   *
+   * Execution of the given list is parallel, all tasks being started
+   * on the `Executor`. Results are written by index in a preallocated
+   * array, the final list (of fixed size) being a view of it, signaled
+   * by whichever task completes last. On the first error the result
+   * is an error, the other tasks being canceled.
+   */
+  static <A> Async<List<A>> parallel(List<Async<A>> list) {
+    return cancelable((executor, cb) -> {
+      final int size = list.size();
+      if (size == 0) {
+        cb.onSuccess(Collections.emptyList());
+        return Cancelable.EMPTY;
+      }
+      if (Instrumentation.enabled) Instrumentation.metrics.parallel(size);
+
+      final Object[] results = new Object[size];
+      final AtomicInteger remaining = new AtomicInteger(size);
+      final CompositeCancelable tokens = new CompositeCancelable(size);
+      int i = 0;
+      for (final Async<A> fa : list) {
+        final int index = i++;
+        tokens.set(index, fa.runCancelable(executor, new Callback<A>() {
+          @Override
+          @SuppressWarnings("unchecked")
+          public void onSuccess(A value) {
+            results[index] = value;
+            if (remaining.decrementAndGet() == 0)
+              cb.onSuccess((List<A>) Arrays.asList(results));
+          }
+
+          @Override
+          public void onError(Throwable e) {
+            tokens.cancel();
+            cb.onError(e);
+          }
+        }));
+      }
+      return tokens;
+    });
+  }
+
+  /**
+   * Like {@link Async#parallel(List)}, but keeps at most `maxConcurrency`
+   * tasks in flight, a new task being started whenever one completes.
+   *
+   * <pre>
+   * {@code
+   * Async<List<String>> fa =
+   *   Async.parallelN(16, requests)
+   * }
+   * </pre>
+   *
+   * @param maxConcurrency is the maximum number of tasks executed in parallel
+   */
+  static <A> Async<List<A>> parallelN(int maxConcurrency, List<Async<A>> list) {
+    return parTraverseN(maxConcurrency, list, Function.identity());
+  }
+
+  /**
+   * Applies `f` to every element of the given list, executing the
+   * resulting tasks in parallel, with at most `maxConcurrency` tasks
+   * in flight.
+   *
+   * Results are ordered like the source list. On the first error the
+   * result is an error, no new tasks are started and the tasks in
+   * flight get canceled.
+   *
+   * @param maxConcurrency is the maximum number of tasks executed in parallel
+   * @param f is the function producing the task for each element
+   */
+  static <A, B> Async<List<B>> parTraverseN(int maxConcurrency, List<A> list, Function<A, Async<B>> f) {
+    return ParTraverse.apply(maxConcurrency, list, f);
+  }
+
+  /**
+   * Like {@link Async#parTraverseN(int, List, Function)}, except that
+   * results are emitted as a stream, each one as soon as its task
+   * completes, instead of waiting for the whole list.
+   *
+   * <pre>
+   * {@code
+   * AsyncStream<Response> responses = Async.parTraverseUnorderedN(8, requests, this::send)
+   * }
+   * </pre>
+   *
+   * Tasks get started on the first pull, after which workers keep
+   * going regardless of the consumer's pace, completed results being
+   * buffered. On the first error the stream ends with that error and
+   * the tasks in flight get canceled. Tasks can't return `null`.
+   *
+   * @param maxConcurrency is the maximum number of tasks executed in parallel
+   * @param f is the function producing the task for each element
+   */
+  static <A, B> AsyncStream<B> parTraverseUnorderedN(int maxConcurrency, List<A> list, Function<A, Async<B>> f) {
+    return ParTraverse.unordered(maxConcurrency, list, f);
+  }
+
+  /**
+   * Executes the two tasks in parallel, returning the result of the
+   * first one to complete, successfully or with an error, the other
+   * one being canceled.
+   *
+   * <pre>
+   * {@code
+   * Async<Response> fa = Async.race(fetch(primary), fetch(replica))
+   * }
+   * </pre>
+   *
+   * Like with {@link Callback#safe(Callback)}, the result of the
+   * loser is ignored, in case it completes before being canceled.
+   */
+  static <A> Async<A> race(Async<A> fa, Async<A> fb) {
+    return Race.apply(Arrays.asList(fa, fb), false);
+  }
+
+  /**
+   * Executes the given tasks in parallel, returning the first successful
+   * result, the others being canceled. Errors are ignored, unless all
+   * tasks fail, in which case the last error gets signaled.
+   *
+   * An empty list results in a `NoSuchElementException`.
+   */
+  static <A> Async<A> firstSuccessOf(List<Async<A>> list) {
+    return Race.apply(list, true);
+  }
+
+  /**
+   * Hedged requests, see {@link Async#hedge(Async, Duration, int, Scheduler)},
+   * using the {@link Scheduler#global()} scheduler.
+   */
+  static <A> Async<A> hedge(Async<A> fa, Duration delay, int maxAttempts) {
+    return hedge(fa, delay, maxAttempts, Scheduler.global());
+  }
+
+  /**
+   * Executes `fa`, starting a backup execution in case it doesn't
+   * complete within the given `delay`, up to `maxAttempts` executions
+   * in total, returning the first successful result.
+   *
+   * <pre>
+   * {@code
+   * // The p95 latency of the service being 20 ms
+   * Async<Response> fa = Async.hedge(fetch(url), Duration.ofMillis(20), 2)
+   * }
+   * </pre>
+   *
+   * Executions still in flight get canceled once a result is available.
+   * Failed executions trigger the next attempt without waiting for the
+   * delay, the last error being signaled if all attempts fail.
+   *
+   * Since executions can overlap, `fa` must be safe to repeat.
+   */
+  static <A> Async<A> hedge(Async<A> fa, Duration delay, int maxAttempts, Scheduler scheduler) {
+    return Race.hedge(fa, delay, maxAttempts, scheduler);
+  }
+
+  /**
+   * Wraps an asynchronous process in a safe `Async` implementation.
+   *
+   * See {@link Async#fromFuture(Supplier)} as example.
+   *
+   * @param start is a supplied function that should start the asynchronous
+   *              process; gets injected with a callback that can be used to
+   *              signal the final result
+   */
+  static <A> Async<A> create(BiConsumer<Executor, Callback<A>> start) {
+    return new AsyncNode.Create<>((executor, cb) -> {
+      start.accept(executor, cb);
+      return Cancelable.EMPTY;
+    });
+  }
+
+  /**
+   * Wraps a cancelable asynchronous process in a safe `Async` implementation.
+   *
+   * Like {@link Async#create(BiConsumer)}, except that the `start`
+   * function returns a token for canceling the started process, used
+   * when the execution gets canceled, see
+   * {@link Async#runCancelable(Executor, Callback)}.
+   *
+   * <pre>
+   * {@code
+   * Async<Response> fa = Async.cancelable((executor, cb) -> {
+   *   Request request = client.send(cb::onSuccess, cb::onError);
+   *   return request::abort;
+   * })
+   * }
+   * </pre>
+   */
+  static <A> Async<A> cancelable(BiFunction<Executor, Callback<A>, Cancelable> start) {
+    return new AsyncNode.Create<>(start);
+  }
+
+  /**
+   * Introduces an async boundary, continuing on the `Executor`.
+   *
+   * Useful for giving other tasks a chance to execute, before a long
+   * synchronous section, see {@link ExecutionModel} for the automatic
+   * version of this.
+   */
+  static Async<Void> shift() {
+    return create((executor, cb) -> cb.onSuccess(null));
+  }
+
+  /**
+   * Lifts an already known value into the `Async` context.
+   *
+   * <pre>
+   * {@code
+   * Async<Integer> fa = Async.pure(2)
+   * }
+   * </pre>
+   */
+  static <A> Async<A> pure(A value) {
+    return new AsyncNode.Pure<>(value);
+  }
+
+  /**
+   * Lifts an error into the `Async` context, the result being
+   * signaled with `onError`.
+   */
+  static <A> Async<A> raiseError(Throwable e) {
+    return new AsyncNode.Error<>(e);
+  }
+
+  /**
+   * Describes a task that completes after the given `duration`,
+   * see {@link Async#sleep(Duration, Scheduler)}.
+   */
+  static Async<Void> sleep(Duration duration) {
+    return sleep(duration, Scheduler.global());
+  }
+
+  /**
+   * Describes a task that completes after the given `duration`,
+   * without blocking any thread.
+   *
+   * <pre>
+   * {@code
+   * Async<String> fa = Async.sleep(Duration.ofSeconds(1))
+   *   .flatMap(ignored -> fetch(url))
+   * }
+   * </pre>
+   *
+   * @param scheduler is used for the timer, the result being signaled
+   *                  on the `Executor` given to `run`
+   */
+  static Async<Void> sleep(Duration duration, Scheduler scheduler) {
+    return cancelable((executor, cb) ->
+      scheduler.schedule(duration.toNanos(), TimeUnit.NANOSECONDS, () ->
+        executor.execute(() -> cb.onSuccess(null))));
+  }
+
+  /**
+   * Describes an `Async` value that gets built anew, by calling `thunk`,
+   * on each execution.
+   *
+   * <pre>
+   * {@code
+   * Async<List<String>> fa = Async.defer(() -> {
+   *   List<String> buffer = new ArrayList<>();
+   *   return fill(buffer).map(ignored -> buffer);
+   * })
+   * }
+   * </pre>
+   */
+  static <A> Async<A> defer(Supplier<Async<A>> thunk) {
+    return new AsyncNode.FlatMap<>(new AsyncNode.Delay<>(thunk), Function.identity());
+  }
+
+  /**
+   * Describes an async computation that executes the given `thunk`
+   * on the provided `Executor`.
+   *
+   * <pre>
+   * {@code
+   * Async<Integer> fa = Async.eval(() -> 1 + 1)
+   * }
+   * </pre>
+   *
+   * The `thunk` is executed by the run-loop, which is always started
+   * on the `Executor`, without an extra async boundary of its own.
+   */
+  static <A> Async<A> eval(Supplier<A> thunk) {
+    return new AsyncNode.Delay<>(thunk);
+  }
+
+  /**
+   * Describes a computation that executes the given blocking `thunk`
+   * on a dedicated `Executor`, then continues on the `Executor` of the
+   * current execution.
+   *
+   * <pre>
+   * {@code
+   * Async<String> line = Async.blocking(() -> reader.readLine())
+   * }
+   * </pre>
+   *
+   * Unlike with {@link Async#eval(Supplier)}, the `thunk` doesn't
+   * occupy a thread of the compute pool. On JDK 21+ it gets executed on
+   * a virtual thread, otherwise on an unbounded pool of cached threads.
+   */
+  static <A> Async<A> blocking(Supplier<A> thunk) {
+    return create((executor, cb) -> BlockingExecutor.INSTANCE.execute(() -> {
+      final A value;
+      try {
+        value = thunk.get();
+      } catch (Exception e) {
+        executor.execute(() -> cb.onError(e));
+        return;
+      }
+      executor.execute(() -> cb.onSuccess(value));
+    }));
+  }
+
+  /**
+   * Wraps a Java `Future` producer into an `Async` type.
+   *
+   * The supplied value is a function, instead of a straight `Future`
+   * reference, because we want it to be lazily evaluated 😉
+   *
+   * Canceling the execution cancels the future.
+   *
+   * Unlike {@link Async#create(BiConsumer)}, there's no executor hop
+   * for starting, as the future is already started, with already
+   * completed futures being evaluated inline. And {@link #toFuture(Executor)}
+   * returns the supplied future, without wrapping it.
+   */
+  static <A> Async<A> fromFuture(Supplier<CompletableFuture<A>> f) {
+    return new AsyncNode.FromFuture<>(f);
+  }
+
+  /**
+   * Subscribes to the given Reactive Streams `Publisher`, returning its
+   * first element, after which the subscription gets canceled.
+   *
+   * A publisher completing without elements signals a
+   * `NoSuchElementException`. Canceling the execution cancels the
+   * subscription.
+   */
+  static <A> Async<A> fromPublisher(Publisher<A> publisher) {
+    return ReactiveStreams.fromPublisher(publisher);
+  }
+}
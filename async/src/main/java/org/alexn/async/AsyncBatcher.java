@@ -0,0 +1,243 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects the keys requested via {@link #load(Object)} into batches,
+ * executing a single bulk call for each batch, then completing each
+ * caller individually (DataLoader-style).
+ *
+ * <pre>
+ * {@code
+ * AsyncBatcher<String, User> users = new AsyncBatcher<>(
+ *   ids -> Async.fromFuture(() -> client.fetchUsers(ids)),
+ *   100,
+ *   Duration.ofMillis(5));
+ *
+ * Async<List<User>> all = Async.parallel(Arrays.asList(
+ *   users.load("alice"),
+ *   users.load("bob")
+ * ));
+ * }
+ * </pre>
+ *
+ * A batch gets dispatched either when it reaches `maxBatchSize` distinct
+ * keys, or `maxDelay` after its first key was requested. With a zero
+ * delay, the batch collects the keys requested until the executor gets
+ * to run the dispatch, i.e. within one executor tick.
+ *
+ * Keys requested multiple times within the same batch are sent once,
+ * all their callers receiving the same result. Keys missing from the
+ * returned `Map` get signaled with a `NoSuchElementException`.
+ */
+public final class AsyncBatcher<K, V> {
+  private final Function<List<K>, Async<Map<K, V>>> batchFn;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final Scheduler scheduler;
+
+  private final LongAdder batchCount = new LongAdder();
+  private final LongAdder keyCount = new LongAdder();
+
+  // Guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private Batch<K, V> current = null;
+
+  /**
+   * @param batchFn is the bulk call, executed once per batch
+   * @param maxBatchSize is the maximum number of distinct keys per batch
+   * @param maxDelay is the maximum time a key waits for its batch
+   *                 to be dispatched, measured from the batch's first key
+   * @param scheduler is used for dispatching batches after `maxDelay`
+   */
+  public AsyncBatcher(Function<List<K>, Async<Map<K, V>>> batchFn, int maxBatchSize,
+                      Duration maxDelay, Scheduler scheduler) {
+    if (maxBatchSize <= 0)
+      throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+    if (maxDelay.isNegative())
+      throw new IllegalArgumentException("maxDelay must not be negative: " + maxDelay);
+    this.batchFn = batchFn;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.scheduler = scheduler;
+  }
+
+  /** Uses the {@link Scheduler#global()} scheduler. */
+  public AsyncBatcher(Function<List<K>, Async<Map<K, V>>> batchFn, int maxBatchSize, Duration maxDelay) {
+    this(batchFn, maxBatchSize, maxDelay, Scheduler.global());
+  }
+
+  /** Dispatches batches within one executor tick, see {@link AsyncBatcher}. */
+  public AsyncBatcher(Function<List<K>, Async<Map<K, V>>> batchFn, int maxBatchSize) {
+    this(batchFn, maxBatchSize, Duration.ZERO, Scheduler.global());
+  }
+
+  /**
+   * Returns the value for `key`, as returned by the bulk call of the
+   * batch it ends up in.
+   *
+   * The key is requested on each execution of the returned `Async`.
+   */
+  public Async<V> load(K key) {
+    return Async.create((executor, cb) -> enqueue(key, executor, cb));
+  }
+
+  /** Returns the number of batches dispatched so far. */
+  public long batchCount() {
+    return batchCount.sum();
+  }
+
+  /** Returns the number of distinct keys sent in dispatched batches. */
+  public long keyCount() {
+    return keyCount.sum();
+  }
+
+  /**
+   * Returns the average fill ratio of dispatched batches, in `[0, 1]`,
+   * with `1` meaning all batches were dispatched with `maxBatchSize` keys.
+   */
+  public double fillRatio() {
+    final long batches = batchCount.sum();
+    if (batches == 0) return 0.0;
+    return (double) keyCount.sum() / ((double) batches * maxBatchSize);
+  }
+
+  private void enqueue(K key, Executor executor, Callback<V> cb) {
+    final Batch<K, V> batch;
+    final boolean isFirst;
+    final boolean isFull;
+
+    lock.lock();
+    try {
+      if (current == null) current = new Batch<>(executor);
+      batch = current;
+      isFirst = batch.waiters.isEmpty();
+      batch.waiters.put(key, new Waiter<>(executor, cb, batch.waiters.get(key)));
+      isFull = batch.waiters.size() >= maxBatchSize;
+      if (isFull) current = null;
+    } finally {
+      lock.unlock();
+    }
+
+    if (isFull) {
+      batch.cancelTimer();
+      executor.execute(() -> dispatch(batch));
+    } else if (isFirst) {
+      if (maxDelayNanos == 0)
+        executor.execute(() -> close(batch));
+      else
+        batch.setTimer(scheduler.schedule(maxDelayNanos, TimeUnit.NANOSECONDS,
+          () -> executor.execute(() -> close(batch))));
+    }
+  }
+
+  /** Dispatches the given batch, unless already dispatched for being full. */
+  private void close(Batch<K, V> batch) {
+    lock.lock();
+    try {
+      if (current != batch) return;
+      current = null;
+    } finally {
+      lock.unlock();
+    }
+    dispatch(batch);
+  }
+
+  private void dispatch(Batch<K, V> batch) {
+    final List<K> keys = new ArrayList<>(batch.waiters.keySet());
+    batchCount.increment();
+    keyCount.add(keys.size());
+
+    final Async<Map<K, V>> task;
+    try {
+      task = batchFn.apply(keys);
+    } catch (Exception e) {
+      batch.signalError(e);
+      return;
+    }
+    task.run(batch.executor, new Callback<Map<K, V>>() {
+      @Override
+      public void onSuccess(Map<K, V> values) {
+        batch.signal(values);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        batch.signalError(e);
+      }
+    });
+  }
+
+  /**
+   * Keys requested for the same dispatch, in request order, with the
+   * bulk call executed on the `Executor` of the first caller.
+   */
+  private static final class Batch<K, V> {
+    final Executor executor;
+    final LinkedHashMap<K, Waiter<V>> waiters = new LinkedHashMap<>();
+    private Cancelable timer = Cancelable.EMPTY;
+    private boolean canceled = false;
+
+    Batch(Executor executor) {
+      this.executor = executor;
+    }
+
+    synchronized void setTimer(Cancelable ref) {
+      if (canceled) ref.cancel();
+      else timer = ref;
+    }
+
+    synchronized void cancelTimer() {
+      canceled = true;
+      timer.cancel();
+    }
+
+    void signal(Map<K, V> values) {
+      for (Map.Entry<K, Waiter<V>> entry : waiters.entrySet()) {
+        final K key = entry.getKey();
+        if (values.containsKey(key)) {
+          final V value = values.get(key);
+          for (Waiter<V> w = entry.getValue(); w != null; w = w.next) w.signal(value, null);
+        } else {
+          final NoSuchElementException e = new NoSuchElementException("No value for key: " + key);
+          for (Waiter<V> w = entry.getValue(); w != null; w = w.next) w.signal(null, e);
+        }
+      }
+    }
+
+    void signalError(Throwable e) {
+      for (Waiter<V> head : waiters.values())
+        for (Waiter<V> w = head; w != null; w = w.next) w.signal(null, e);
+    }
+  }
+
+  /** Immutable linked list of the callers waiting for the same key. */
+  private static final class Waiter<V> {
+    final Executor executor;
+    final Callback<V> cb;
+    final Waiter<V> next;
+
+    Waiter(Executor executor, Callback<V> cb, Waiter<V> next) {
+      this.executor = executor;
+      this.cb = cb;
+      this.next = next;
+    }
+
+    void signal(V value, Throwable error) {
+      if (error != null)
+        executor.execute(() -> cb.onError(error));
+      else
+        executor.execute(() -> cb.onSuccess(value));
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A size-bounded cache of `Async` results, with request coalescing.
+ *
+ * Concurrent {@link #get(Object, Function)} calls for the same key share
+ * a single in-flight execution of the loader, with its result cached
+ * for the configured time-to-live (see {@link Async#cached(Duration)}).
+ * Errors aren't cached, the next execution retrying the loader.
+ *
+ * The time-to-live given to the constructor is only a default, entries
+ * being able to override it via {@link #get(Object, Function, Duration)}.
+ *
+ * <pre>
+ * {@code
+ * AsyncCache<String, User> users = new AsyncCache<>(10000, Duration.ofMinutes(1));
+ *
+ * Async<User> user = users.get(id, key -> Async.fromFuture(() -> client.fetchUser(key)));
+ * }
+ * </pre>
+ *
+ * Lookups go through a `ConcurrentHashMap`, whereas eviction is done
+ * with a segmented LRU policy: new entries are placed in a probation
+ * segment and get promoted to the protected segment when accessed
+ * again, such that entries accessed only once are evicted first.
+ * The policy is guarded by a lock, but recording accesses is lossy,
+ * being skipped when the lock is contended, so reads never block.
+ */
+public final class AsyncCache<K, V> {
+  private final int maximumSize;
+  private final int maxProtected;
+  private final long ttlNanos;
+  private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+
+  // Guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Segment<K, V> probation = new Segment<>();
+  private final Segment<K, V> protectedSegment = new Segment<>();
+
+  /**
+   * @param maximumSize is the maximum number of entries
+   * @param ttl is the default time-to-live of each entry's result,
+   *            measured from the moment it was computed
+   */
+  public AsyncCache(int maximumSize, Duration ttl) {
+    this(maximumSize, toNanos(ttl));
+  }
+
+  /** Builds a cache whose entries don't expire, being only evicted. */
+  public AsyncCache(int maximumSize) {
+    this(maximumSize, Long.MAX_VALUE);
+  }
+
+  private AsyncCache(int maximumSize, long ttlNanos) {
+    if (maximumSize <= 0)
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    this.maximumSize = maximumSize;
+    this.maxProtected = Math.max(1, maximumSize * 4 / 5);
+    this.ttlNanos = ttlNanos;
+  }
+
+  private static long toNanos(Duration ttl) {
+    if (ttl.isNegative() || ttl.isZero())
+      throw new IllegalArgumentException("ttl must be positive: " + ttl);
+    return ttl.toNanos();
+  }
+
+  /**
+   * Returns the cached result for `key`, executing the task built by
+   * `loader` if the result is missing or expired.
+   *
+   * The lookup happens on each execution of the returned `Async`.
+   */
+  public Async<V> get(K key, Function<K, Async<V>> loader) {
+    return get(key, loader, ttlNanos);
+  }
+
+  /**
+   * Like {@link #get(Object, Function)}, but with a time-to-live
+   * specific to this entry, overriding the cache's default.
+   *
+   * The `ttl` only applies when the entry gets created, an existing
+   * entry keeping the time-to-live it was created with.
+   */
+  public Async<V> get(K key, Function<K, Async<V>> loader, Duration ttl) {
+    return get(key, loader, toNanos(ttl));
+  }
+
+  private Async<V> get(K key, Function<K, Async<V>> loader, long ttlNanos) {
+    return Async.defer(() -> {
+      final Node<K, V> node = map.get(key);
+      if (node != null) {
+        recordAccess(node);
+        return node.value;
+      }
+      final Node<K, V> created = new Node<>(key, Memoized.cached(loader.apply(key), ttlNanos));
+      final Node<K, V> existing = map.putIfAbsent(key, created);
+      if (existing != null) {
+        recordAccess(existing);
+        return existing.value;
+      }
+      recordInsert(created);
+      return created.value;
+    });
+  }
+
+  /** Discards the entry for `key`, if any. */
+  public void invalidate(K key) {
+    final Node<K, V> node = map.remove(key);
+    if (node != null) {
+      lock.lock();
+      try {
+        if (node.segment != null) node.segment.remove(node);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return map.size();
+  }
+
+  private void recordAccess(Node<K, V> node) {
+    // Lossy, skipped on contention
+    if (!lock.tryLock()) return;
+    try {
+      if (node.segment == probation) {
+        probation.remove(node);
+        protectedSegment.addFirst(node);
+        if (protectedSegment.size > maxProtected) {
+          final Node<K, V> demoted = protectedSegment.removeLast();
+          probation.addFirst(demoted);
+        }
+      } else if (node.segment == protectedSegment) {
+        protectedSegment.remove(node);
+        protectedSegment.addFirst(node);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recordInsert(Node<K, V> node) {
+    lock.lock();
+    try {
+      // Might have been invalidated in the meantime
+      if (map.get(node.key) != node) return;
+      probation.addFirst(node);
+      while (probation.size + protectedSegment.size > maximumSize) {
+        final Node<K, V> victim = probation.size > 0
+          ? probation.removeLast()
+          : protectedSegment.removeLast();
+        map.remove(victim.key, victim);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static final class Node<K, V> {
+    final K key;
+    final Async<V> value;
+
+    // Guarded by lock
+    Segment<K, V> segment;
+    Node<K, V> prev;
+    Node<K, V> next;
+
+    Node(K key, Async<V> value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /** Doubly linked list, from most to least recently used. */
+  private static final class Segment<K, V> {
+    Node<K, V> head;
+    Node<K, V> tail;
+    int size;
+
+    void addFirst(Node<K, V> node) {
+      node.segment = this;
+      node.prev = null;
+      node.next = head;
+      if (head != null) head.prev = node;
+      else tail = node;
+      head = node;
+      size++;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node.prev != null) node.prev.next = node.next;
+      else head = node.next;
+      if (node.next != null) node.next.prev = node.prev;
+      else tail = node.prev;
+      node.prev = node.next = null;
+      node.segment = null;
+      size--;
+    }
+
+    Node<K, V> removeLast() {
+      final Node<K, V> node = tail;
+      remove(node);
+      return node;
+    }
+  }
+}
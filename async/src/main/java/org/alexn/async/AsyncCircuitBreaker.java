@@ -0,0 +1,253 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker for `Async` tasks, failing fast while the
+ * protected dependency is failing.
+ *
+ * <pre>
+ * {@code
+ * AsyncCircuitBreaker breaker = new AsyncCircuitBreaker(
+ *   0.5, 20, Duration.ofSeconds(10), Duration.ofSeconds(5));
+ *
+ * Async<Response> fa = breaker.protect(Async.fromFuture(() -> client.call(request)))
+ * }
+ * </pre>
+ *
+ * The breaker is in one of these states:
+ *
+ *   1. `CLOSED`: tasks get executed, their outcomes recorded in a
+ *      sliding window; when at least `minimumCalls` were recorded and
+ *      the failure rate reaches `failureRateThreshold`, it opens
+ *   2. `OPEN`: tasks fail with a {@link CircuitBreakerOpenException},
+ *      without being executed, until `resetTimeout` elapses
+ *   3. `HALF_OPEN`: a single trial task gets executed, other tasks
+ *      failing fast; on success the breaker closes, otherwise it opens
+ *      again; a trial that doesn't complete within `resetTimeout` is
+ *      abandoned, the next task becoming the new trial
+ *
+ * The state is packed in a single `AtomicLong`, along with the time it
+ * was entered and the generation of the last trial, transitions being
+ * done via CAS. The generation identifies a trial, such that an
+ * abandoned trial can't complete or release the current one. The sliding window is
+ * a ring buffer of buckets, each holding the failure and total counts
+ * of a time slice in a single `AtomicLong`. Recording is lossy when a
+ * bucket gets recycled concurrently, an accepted approximation.
+ */
+public final class AsyncCircuitBreaker {
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private static final int CLOSED = 0;
+  private static final int OPEN = 1;
+  private static final int HALF_OPEN = 2;
+  private static final int BUCKETS = 10;
+  private static final long GENERATION_MASK = 0x3FFF;
+
+  /** Results of {@link #tryAcquire()}, trials getting their state instead. */
+  private static final long ALLOWED = 0;
+  private static final long REJECTED = -1;
+
+  private final double failureRateThreshold;
+  private final int minimumCalls;
+  private final long bucketNanos;
+  private final long resetTimeoutNanos;
+  private final LongSupplier clock;
+  private final long startTime;
+
+  // From the highest bits: the time relative to `startTime` when the
+  // state was entered, in microseconds (48 bits), the generation of the
+  // last trial (14 bits), and the state (2 bits)
+  private final AtomicLong state = new AtomicLong(CLOSED);
+  private final Bucket[] window = new Bucket[BUCKETS];
+
+  /**
+   * @param failureRateThreshold is the failure rate, in `(0, 1]`,
+   *                             that opens the breaker
+   * @param minimumCalls is the number of calls in the sliding window
+   *                     needed before the failure rate is considered
+   * @param window is the duration of the sliding window
+   * @param resetTimeout is how long the breaker stays open before
+   *                     allowing a trial call
+   */
+  public AsyncCircuitBreaker(double failureRateThreshold, int minimumCalls,
+                             Duration window, Duration resetTimeout) {
+    this(failureRateThreshold, minimumCalls, window, resetTimeout, System::nanoTime);
+  }
+
+  AsyncCircuitBreaker(double failureRateThreshold, int minimumCalls,
+                      Duration window, Duration resetTimeout, LongSupplier clock) {
+    if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+      throw new IllegalArgumentException("failureRateThreshold out of range: " + failureRateThreshold);
+    if (minimumCalls <= 0)
+      throw new IllegalArgumentException("minimumCalls must be positive: " + minimumCalls);
+    if (window.toNanos() < BUCKETS)
+      throw new IllegalArgumentException("window too short: " + window);
+    if (resetTimeout.isNegative())
+      throw new IllegalArgumentException("resetTimeout must not be negative: " + resetTimeout);
+
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumCalls = minimumCalls;
+    this.bucketNanos = window.toNanos() / BUCKETS;
+    this.resetTimeoutNanos = resetTimeout.toNanos();
+    this.clock = clock;
+    this.startTime = clock.getAsLong();
+    for (int i = 0; i < BUCKETS; i++) this.window[i] = new Bucket();
+  }
+
+  /**
+   * Returns a task that executes `fa` if the breaker allows it,
+   * recording its outcome, or that fails with a
+   * {@link CircuitBreakerOpenException} otherwise.
+   *
+   * The decision is made on each execution of the returned `Async`.
+   */
+  public <A> Async<A> protect(Async<A> fa) {
+    return Async.cancelable((executor, cb) -> {
+      final long trial = tryAcquire();
+      if (trial == REJECTED) {
+        cb.onError(new CircuitBreakerOpenException("Circuit breaker is open"));
+        return Cancelable.EMPTY;
+      }
+
+      final Cancelable token = fa.runCancelable(executor, new Callback<A>() {
+        @Override
+        public void onSuccess(A value) {
+          onComplete(trial, false);
+          cb.onSuccess(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          onComplete(trial, true);
+          cb.onError(e);
+        }
+      });
+      if (trial == ALLOWED) return token;
+      return () -> {
+        // A canceled trial is inconclusive, allowing another one
+        releaseTrial(trial);
+        token.cancel();
+      };
+    });
+  }
+
+  /** Returns the current state. */
+  public State state() {
+    switch ((int) (state.get() & 3)) {
+      case CLOSED: return State.CLOSED;
+      case OPEN: return State.OPEN;
+      default: return State.HALF_OPEN;
+    }
+  }
+
+  /**
+   * @return `ALLOWED` if the call is allowed, `REJECTED` if not, or
+   *         the new state if it's allowed as the trial call
+   */
+  private long tryAcquire() {
+    while (true) {
+      final long current = state.get();
+      final int tag = (int) (current & 3);
+      if (tag == CLOSED) return ALLOWED;
+      // Measured from the opening, or from the start of the current trial
+      final long now = now();
+      if (now - timeOf(current) < resetTimeoutNanos) return REJECTED;
+      // Reset timeout elapsed, the winner of the CAS does the trial
+      final long trial = pack(now, generationOf(current) + 1, HALF_OPEN);
+      if (state.compareAndSet(current, trial)) return trial;
+    }
+  }
+
+  private void releaseTrial(long trial) {
+    // Opened such that the reset timeout already elapsed
+    final long openedAt = Math.max(0, timeOf(trial) - resetTimeoutNanos);
+    state.compareAndSet(trial, pack(openedAt, generationOf(trial), OPEN));
+  }
+
+  private void onComplete(long trial, boolean isFailure) {
+    if (trial != ALLOWED) {
+      // Ignoring abandoned trials
+      if (state.get() != trial) return;
+      if (isFailure) {
+        state.compareAndSet(trial, pack(now(), generationOf(trial), OPEN));
+      } else {
+        for (Bucket b : window) b.clear();
+        state.compareAndSet(trial, pack(0, generationOf(trial), CLOSED));
+      }
+      return;
+    }
+
+    final long now = now();
+    record(now, isFailure);
+    if (isFailure) {
+      final long current = state.get();
+      if ((current & 3) == CLOSED && isFailureRateExceeded(now))
+        state.compareAndSet(current, pack(now, generationOf(current), OPEN));
+    }
+  }
+
+  private static long pack(long timeNanos, long generation, int tag) {
+    return (timeNanos / 1000) << 16 | (generation & GENERATION_MASK) << 2 | tag;
+  }
+
+  private static long timeOf(long state) {
+    return (state >>> 16) * 1000;
+  }
+
+  private static long generationOf(long state) {
+    return (state >>> 2) & GENERATION_MASK;
+  }
+
+  private void record(long now, boolean isFailure) {
+    final long epoch = now / bucketNanos;
+    final Bucket bucket = window[(int) (epoch % BUCKETS)];
+    final long delta = isFailure ? (1L << 32) | 1 : 1;
+    while (true) {
+      final long e = bucket.epoch;
+      if (e == epoch) {
+        bucket.addAndGet(delta);
+        return;
+      }
+      if (e > epoch) return;
+      // Recycling an expired bucket
+      if (Bucket.EPOCH.compareAndSet(bucket, e, epoch)) {
+        bucket.set(delta);
+        return;
+      }
+    }
+  }
+
+  private boolean isFailureRateExceeded(long now) {
+    final long epoch = now / bucketNanos;
+    long failures = 0;
+    long total = 0;
+    for (Bucket b : window) {
+      if (epoch - b.epoch >= BUCKETS) continue;
+      final long counts = b.get();
+      failures += counts >>> 32;
+      total += counts & 0xFFFFFFFFL;
+    }
+    return total >= minimumCalls && failures >= failureRateThreshold * total;
+  }
+
+  private long now() {
+    return clock.getAsLong() - startTime;
+  }
+
+  /** Failures in the upper 32 bits, total calls in the lower 32 bits. */
+  private static final class Bucket extends AtomicLong {
+    static final AtomicLongFieldUpdater<Bucket> EPOCH =
+      AtomicLongFieldUpdater.newUpdater(Bucket.class, "epoch");
+
+    volatile long epoch = -BUCKETS;
+
+    void clear() {
+      epoch = -BUCKETS;
+      set(0);
+    }
+  }
+}
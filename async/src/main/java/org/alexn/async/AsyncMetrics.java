@@ -0,0 +1,66 @@
+package org.alexn.async;
+
+/**
+ * Hooks for instrumenting the execution of `Async` values, all of them
+ * being no-ops by default.
+ *
+ * Metrics are opt-in, being installed on startup via the
+ * `org.alexn.async.metrics` system property, set to the name of an
+ * implementation with a public no-argument constructor:
+ *
+ * <pre>
+ * {@code
+ * java -Dorg.alexn.async.metrics=org.alexn.async.AsyncMetricsRecorder ...
+ *
+ * AsyncMetricsRecorder metrics = (AsyncMetricsRecorder) AsyncMetrics.installed()
+ * }
+ * </pre>
+ *
+ * When not installed, the instance is a `static final` no-op and every
+ * call site is guarded by a `static final` flag, so the JIT eliminates
+ * the instrumentation entirely.
+ *
+ * Hooks get called concurrently, from the threads executing the
+ * instrumented tasks, so implementations need to be thread-safe
+ * and cheap.
+ */
+public interface AsyncMetrics {
+  /** Instance used when metrics aren't enabled. */
+  AsyncMetrics NOOP = new AsyncMetrics() {};
+
+  /** Returns the installed instance, or {@link #NOOP}. */
+  static AsyncMetrics installed() {
+    return Instrumentation.metrics;
+  }
+
+  /** Called when a run-loop starts, for each {@link Async#run} call. */
+  default void taskStarted() {}
+
+  /**
+   * Called when a run-loop completes.
+   *
+   * @param isError is `true` if the result is an error
+   * @param nanos is the time elapsed since `run` was called
+   */
+  default void taskCompleted(boolean isError, long nanos) {}
+
+  /**
+   * Called when a task submitted by the run-loop to the `Executor`
+   * starts executing.
+   *
+   * @param nanos is the time the task spent waiting in the `Executor`
+   */
+  default void executorHop(long nanos) {}
+
+  /** Called when an async boundary, see {@link Async#create}, is started. */
+  default void asyncBoundary() {}
+
+  /** Called when a thunk built via {@link Async#eval} gets evaluated. */
+  default void eval() {}
+
+  /** Called when a `flatMap` continuation gets evaluated. */
+  default void flatMap() {}
+
+  /** Called when {@link Async#parallel} starts its tasks. */
+  default void parallel(int tasks) {}
+}
@@ -0,0 +1,118 @@
+package org.alexn.async;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default {@link AsyncMetrics} implementation, keeping striped
+ * `LongAdder` counters, plus {@link LatencyHistogram} instances for
+ * the time tasks wait in the `Executor` and for the time run-loops
+ * take to complete.
+ */
+public final class AsyncMetricsRecorder implements AsyncMetrics {
+  private final LongAdder tasksStarted = new LongAdder();
+  private final LongAdder tasksCompleted = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder executorHops = new LongAdder();
+  private final LongAdder asyncBoundaries = new LongAdder();
+  private final LongAdder evals = new LongAdder();
+  private final LongAdder flatMaps = new LongAdder();
+  private final LongAdder parallelTasks = new LongAdder();
+  private final LatencyHistogram scheduleLatency = new LatencyHistogram();
+  private final LatencyHistogram executionLatency = new LatencyHistogram();
+
+  @Override
+  public void taskStarted() {
+    tasksStarted.increment();
+  }
+
+  @Override
+  public void taskCompleted(boolean isError, long nanos) {
+    tasksCompleted.increment();
+    if (isError) errors.increment();
+    executionLatency.record(nanos);
+  }
+
+  @Override
+  public void executorHop(long nanos) {
+    executorHops.increment();
+    scheduleLatency.record(nanos);
+  }
+
+  @Override
+  public void asyncBoundary() {
+    asyncBoundaries.increment();
+  }
+
+  @Override
+  public void eval() {
+    evals.increment();
+  }
+
+  @Override
+  public void flatMap() {
+    flatMaps.increment();
+  }
+
+  @Override
+  public void parallel(int tasks) {
+    parallelTasks.add(tasks);
+  }
+
+  public long tasksStarted() {
+    return tasksStarted.sum();
+  }
+
+  public long tasksCompleted() {
+    return tasksCompleted.sum();
+  }
+
+  public long errors() {
+    return errors.sum();
+  }
+
+  public long executorHops() {
+    return executorHops.sum();
+  }
+
+  public long asyncBoundaries() {
+    return asyncBoundaries.sum();
+  }
+
+  public long evals() {
+    return evals.sum();
+  }
+
+  public long flatMaps() {
+    return flatMaps.sum();
+  }
+
+  public long parallelTasks() {
+    return parallelTasks.sum();
+  }
+
+  /** Submit-to-start times of the tasks submitted to the `Executor`, in nanoseconds. */
+  public LatencyHistogram scheduleLatency() {
+    return scheduleLatency;
+  }
+
+  /** Start-to-complete times of run-loops, in nanoseconds. */
+  public LatencyHistogram executionLatency() {
+    return executionLatency;
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncMetricsRecorder(" +
+      "tasksStarted=" + tasksStarted() +
+      ", tasksCompleted=" + tasksCompleted() +
+      ", errors=" + errors() +
+      ", executorHops=" + executorHops() +
+      ", asyncBoundaries=" + asyncBoundaries() +
+      ", evals=" + evals() +
+      ", flatMaps=" + flatMaps() +
+      ", parallelTasks=" + parallelTasks() +
+      ", scheduleLatencyP99=" + scheduleLatency.valueAtPercentile(99) +
+      ", executionLatencyP99=" + executionLatency.valueAtPercentile(99) +
+      ")";
+  }
+}
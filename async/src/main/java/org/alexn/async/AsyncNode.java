@@ -0,0 +1,163 @@
+package org.alexn.async;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reified instructions that `Async` values are built from.
+ *
+ * Operations like {@link Async#map(Function)} or {@link Async#flatMap(Function)}
+ * don't execute anything, they only describe the computation as a tree
+ * of nodes, the actual evaluation being done by the {@link RunLoop}.
+ *
+ * Dispatch in the run-loop happens on {@link #tag}, instead of
+ * `instanceof` checks.
+ */
+abstract class AsyncNode<A> implements Async<A> {
+  static final int PURE = 0;
+  static final int DELAY = 1;
+  static final int CREATE = 2;
+  static final int MAP = 3;
+  static final int FLATMAP = 4;
+  static final int ERROR = 5;
+  static final int FUTURE = 6;
+
+  final int tag;
+
+  AsyncNode(int tag) {
+    this.tag = tag;
+  }
+
+  @Override
+  public final void run(Executor executor, Callback<A> cb) {
+    RunLoop.start(this, executor, cb);
+  }
+
+  @Override
+  public final Cancelable runCancelable(Executor executor, Callback<A> cb) {
+    return RunLoop.start(this, executor, cb);
+  }
+
+  /** An already evaluated value, see {@link Async#pure(Object)}. */
+  static final class Pure<A> extends AsyncNode<A> {
+    final A value;
+
+    Pure(A value) {
+      super(PURE);
+      this.value = value;
+    }
+  }
+
+  /** An already known error, see {@link Async#raiseError(Throwable)}. */
+  static final class Error<A> extends AsyncNode<A> {
+    final Throwable error;
+
+    Error(Throwable error) {
+      super(ERROR);
+      this.error = error;
+    }
+  }
+
+  /** A synchronous side effect, see {@link Async#eval(Supplier)}. */
+  static final class Delay<A> extends AsyncNode<A> {
+    final Supplier<A> thunk;
+
+    Delay(Supplier<A> thunk) {
+      super(DELAY);
+      this.thunk = thunk;
+    }
+  }
+
+  /**
+   * An asynchronous boundary, see {@link Async#create(BiConsumer)}
+   * and {@link Async#cancelable(BiFunction)}.
+   */
+  static final class Create<A> extends AsyncNode<A> {
+    final BiFunction<Executor, Callback<A>, Cancelable> start;
+
+    Create(BiFunction<Executor, Callback<A>, Cancelable> start) {
+      super(CREATE);
+      this.start = start;
+    }
+  }
+
+  /**
+   * A future-based asynchronous boundary, see {@link Async#fromFuture(Supplier)}.
+   *
+   * Unlike {@link Create}, it doesn't go through the `Executor`, as
+   * the future is already started, already completed futures being
+   * evaluated inline by the run-loop.
+   */
+  static final class FromFuture<A> extends AsyncNode<A> {
+    final Supplier<CompletableFuture<A>> future;
+
+    FromFuture(Supplier<CompletableFuture<A>> future) {
+      super(FUTURE);
+      this.future = future;
+    }
+
+    /**
+     * Returns the supplied future, instead of wrapping it in another
+     * one, canceling it being the same as canceling the execution.
+     */
+    @Override
+    public CompletableFuture<A> toFuture(Executor executor) {
+      try {
+        return Objects.requireNonNull(future.get(), "future");
+      } catch (Exception e) {
+        final CompletableFuture<A> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+      }
+    }
+  }
+
+  /**
+   * Transformation of the source's result, see {@link Async#map(Function)}.
+   *
+   * Consecutive `map` calls get fused into a single node, by composing
+   * the functions, such that a chain of `map` calls is executed as a
+   * single step of the run-loop. Composed functions consume call-stack
+   * space, so fusion stops at {@link #MAX_FUSION_DEPTH}, which can be
+   * changed with the `org.alexn.async.fusionMaxDepth` system property.
+   */
+  static final class Map<S, A> extends AsyncNode<A> {
+    static final int MAX_FUSION_DEPTH =
+      Integer.getInteger("org.alexn.async.fusionMaxDepth", 127);
+
+    final Async<S> source;
+    final Function<S, A> f;
+    final int depth;
+
+    Map(Async<S> source, Function<S, A> f, int depth) {
+      super(MAP);
+      this.source = source;
+      this.f = f;
+      this.depth = depth;
+    }
+
+    @Override
+    public <B> Async<B> map(Function<A, B> g) {
+      return depth < MAX_FUSION_DEPTH
+        ? new Map<>(source, f.andThen(g), depth + 1)
+        : new Map<>(this, g, 0);
+    }
+  }
+
+  /** Continuation of the source's result, see {@link Async#flatMap(Function)}. */
+  static final class FlatMap<S, A> extends AsyncNode<A> {
+    final Async<S> source;
+    final Function<S, Async<A>> f;
+
+    FlatMap(Async<S> source, Function<S, Async<A>> f) {
+      super(FLATMAP);
+      this.source = source;
+      this.f = f;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token-bucket rate limiter for `Async` tasks, delaying them with
+ * the {@link Scheduler}, without blocking any threads.
+ *
+ * <pre>
+ * {@code
+ * // 50 requests per second, allowing bursts of 10
+ * AsyncRateLimiter limiter = new AsyncRateLimiter(50, 10);
+ *
+ * Async<Response> fa = limiter.throttle(Async.fromFuture(() -> partner.call(request)))
+ * }
+ * </pre>
+ *
+ * The bucket holds at most `burst` tokens, refilled at `permitsPerSecond`.
+ * Its whole state is a single `long`, updated via CAS: the time at which
+ * the bucket will be full again, from which the number of available
+ * tokens is derived (see the Generic Cell Rate Algorithm). Taking a
+ * token moves that time forward by one emission interval.
+ *
+ * In fair mode, tasks reserve their token on arrival, waiting for it
+ * if needed, so they get served in FIFO order. Otherwise, tasks that
+ * find the bucket empty wait for the next token and then try again,
+ * competing with newly arrived tasks, which avoids reserving tokens
+ * for tasks that could get canceled in the meantime.
+ */
+public final class AsyncRateLimiter {
+  private final long intervalNanos;
+  private final long capacityNanos;
+  private final boolean fair;
+  private final Scheduler scheduler;
+  private final LongSupplier clock;
+  private final long startTime;
+
+  // When the bucket will be full, relative to `startTime`
+  private final AtomicLong fullAt = new AtomicLong(0);
+
+  /** Builds a non-fair limiter, using the {@link Scheduler#global()} scheduler. */
+  public AsyncRateLimiter(double permitsPerSecond, int burst) {
+    this(permitsPerSecond, burst, false, Scheduler.global());
+  }
+
+  /**
+   * @param permitsPerSecond is the rate at which tokens are added
+   * @param burst is the maximum number of tokens in the bucket
+   * @param fair is `true` for serving waiting tasks in FIFO order
+   * @param scheduler is used for delaying tasks
+   */
+  public AsyncRateLimiter(double permitsPerSecond, int burst, boolean fair, Scheduler scheduler) {
+    this(permitsPerSecond, burst, fair, scheduler, System::nanoTime);
+  }
+
+  AsyncRateLimiter(double permitsPerSecond, int burst, boolean fair, Scheduler scheduler, LongSupplier clock) {
+    if (!(permitsPerSecond > 0))
+      throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+    if (burst <= 0)
+      throw new IllegalArgumentException("burst must be positive: " + burst);
+    this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    this.capacityNanos = intervalNanos * burst;
+    this.fair = fair;
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.startTime = clock.getAsLong();
+  }
+
+  /** Takes a token if available, without waiting. */
+  public boolean tryAcquire() {
+    return acquire(false) == 0;
+  }
+
+  /**
+   * Returns a task that executes `fa` once a token is available.
+   *
+   * The token is taken on each execution of the returned `Async`.
+   */
+  public <A> Async<A> throttle(Async<A> fa) {
+    return Async.defer(() -> {
+      final long delay = acquire(fair);
+      if (delay == 0) return fa;
+      final Async<Void> sleep = Async.sleep(Duration.ofNanos(delay), scheduler);
+      return fair ? sleep.flatMap(ignored -> fa) : sleep.flatMap(ignored -> throttle(fa));
+    });
+  }
+
+  /** Returns the number of available tokens. */
+  public long available() {
+    final long now = now();
+    return (capacityNanos - Math.max(0, fullAt.get() - now)) / intervalNanos;
+  }
+
+  /**
+   * Takes a token, returning `0` if available now, or otherwise the
+   * time in nanoseconds until the next token becomes available, the
+   * token being reserved if `reserve` is `true`.
+   */
+  private long acquire(boolean reserve) {
+    while (true) {
+      final long now = now();
+      final long current = fullAt.get();
+      final long update = Math.max(current, now) + intervalNanos;
+      final long delay = update - now - capacityNanos;
+      if (delay > 0 && !reserve) return delay;
+      if (fullAt.compareAndSet(current, update)) return Math.max(0, delay);
+    }
+  }
+
+  private long now() {
+    return clock.getAsLong() - startTime;
+  }
+}
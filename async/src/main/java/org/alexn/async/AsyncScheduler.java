@@ -0,0 +1,266 @@
+package org.alexn.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A work-stealing `Executor`, tuned for the short tasks submitted by
+ * the run-loop, on every async boundary.
+ *
+ * Each worker thread owns a bounded lock-free queue, plus a LIFO slot:
+ *
+ *   1. tasks submitted from a worker thread go in its LIFO slot, such
+ *      that a continuation runs next, on the same thread, while its
+ *      data is still in the CPU's cache; the previous occupant of the
+ *      slot is moved to the worker's queue
+ *   2. tasks submitted from other threads go in a shared queue
+ *   3. idle workers steal from the queues of other workers, before
+ *      parking
+ *
+ * For fairness, the LIFO slot is skipped after {@link #MAX_LIFO_POLLS}
+ * consecutive uses, and the shared queue is checked first every
+ * {@link #GLOBAL_POLL_INTERVAL} tasks, such that neither local nor
+ * external tasks can starve the other.
+ *
+ * Workers are daemon threads, started on construction.
+ */
+public final class AsyncScheduler implements Executor {
+  private static final int MAX_LIFO_POLLS = 3;
+  private static final int GLOBAL_POLL_INTERVAL = 61;
+  private static final int SPINS_BEFORE_PARK = 64;
+
+  private final Worker[] workers;
+  private final Queue<Runnable> global = new ConcurrentLinkedQueue<>();
+  private final Queue<Worker> idle = new ConcurrentLinkedQueue<>();
+  private volatile boolean running = true;
+
+  /**
+   * @param name is the prefix for the names of the worker threads
+   * @param parallelism is the number of worker threads
+   */
+  public AsyncScheduler(String name, int parallelism) {
+    if (parallelism <= 0)
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    this.workers = new Worker[parallelism];
+    for (int i = 0; i < parallelism; i++)
+      workers[i] = new Worker(this, name + "-" + i);
+    for (Worker w : workers) w.start();
+  }
+
+  /** Builds a scheduler with one worker per available processor. */
+  public AsyncScheduler() {
+    this("async-scheduler", Runtime.getRuntime().availableProcessors());
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (!running)
+      throw new RejectedExecutionException("AsyncScheduler was shut down");
+
+    final Thread current = Thread.currentThread();
+    if (current instanceof Worker && ((Worker) current).pool == this) {
+      // Tasks in the LIFO slot can't be stolen, no point in waking others
+      if (((Worker) current).push(command)) notifyIdle();
+    } else {
+      global.add(command);
+      notifyIdle();
+    }
+  }
+
+  /** Stops the worker threads, pending tasks being discarded. */
+  public void shutdown() {
+    running = false;
+    for (Worker w : workers) LockSupport.unpark(w);
+  }
+
+  private void notifyIdle() {
+    if (idle.isEmpty()) return;
+    final Worker w = idle.poll();
+    if (w != null) {
+      w.isIdle = false;
+      LockSupport.unpark(w);
+    }
+  }
+
+  private static final class Worker extends Thread {
+    final AsyncScheduler pool;
+    final LocalQueue queue = new LocalQueue();
+    private Runnable lifo = null;
+    private int lifoPolls = 0;
+    private long ticks = 0;
+    volatile boolean isIdle = false;
+
+    Worker(AsyncScheduler pool, String name) {
+      super(name);
+      this.pool = pool;
+      setDaemon(true);
+    }
+
+    /** @return `true` if the previous task in the LIFO slot was moved to a queue */
+    boolean push(Runnable task) {
+      final Runnable prev = lifo;
+      lifo = task;
+      if (prev == null) return false;
+      if (!queue.offer(prev)) pool.global.add(prev);
+      return true;
+    }
+
+    @Override
+    public void run() {
+      while (pool.running) {
+        final Runnable task = next();
+        if (task != null) {
+          // More work available, so other workers might help
+          if (queue.size() > 0) pool.notifyIdle();
+          execute(task);
+        } else {
+          park();
+        }
+      }
+    }
+
+    private void execute(Runnable task) {
+      try {
+        task.run();
+      } catch (Exception e) {
+        getUncaughtExceptionHandler().uncaughtException(this, e);
+      }
+    }
+
+    private Runnable next() {
+      Runnable task;
+      if (++ticks % GLOBAL_POLL_INTERVAL == 0 && (task = pool.global.poll()) != null) {
+        spill();
+        return task;
+      }
+      if ((task = lifo) != null) {
+        lifo = null;
+        if (++lifoPolls <= MAX_LIFO_POLLS) return task;
+        // Too many consecutive uses of the LIFO slot, giving others a chance
+        lifoPolls = 0;
+        if (!queue.offer(task)) pool.global.add(task);
+      } else {
+        lifoPolls = 0;
+      }
+      if ((task = queue.poll()) != null) return task;
+      if ((task = pool.global.poll()) != null) return task;
+      return steal();
+    }
+
+    /** Moves the LIFO slot in the queue, as it goes after the task taken from the global queue. */
+    private void spill() {
+      final Runnable task = lifo;
+      if (task != null) {
+        lifo = null;
+        if (!queue.offer(task)) pool.global.add(task);
+      }
+    }
+
+    private Runnable steal() {
+      final Worker[] workers = pool.workers;
+      final int n = workers.length;
+      final int start = ThreadLocalRandom.current().nextInt(n);
+      for (int i = 0; i < n; i++) {
+        final Worker victim = workers[(start + i) % n];
+        if (victim == this) continue;
+        final Runnable task = victim.queue.steal();
+        if (task != null) return task;
+      }
+      return null;
+    }
+
+    private void park() {
+      for (int i = 0; i < SPINS_BEFORE_PARK; i++) {
+        if (hasWork()) return;
+        Thread.yield();
+      }
+      if (!isIdle) {
+        isIdle = true;
+        pool.idle.add(this);
+      }
+      // Re-checking after registering as idle, as a task might have been
+      // submitted before our registration was visible
+      if (hasWork() || !pool.running) {
+        if (pool.idle.remove(this)) isIdle = false;
+        return;
+      }
+      LockSupport.park(pool);
+    }
+
+    private boolean hasWork() {
+      if (!pool.global.isEmpty()) return true;
+      for (Worker w : pool.workers)
+        if (w.queue.size() > 0) return true;
+      return false;
+    }
+  }
+
+  /**
+   * A bounded single-producer, multi-consumer ring buffer.
+   *
+   * Only the owning worker offers, whereas both the owner and
+   * stealing workers poll, by advancing `head` via CAS.
+   *
+   * Only the owner writes slots, stealing workers only reading them,
+   * as a thief clearing a slot after its CAS could race with the owner
+   * reusing that slot, e.g. for the same `Runnable`. Slots consumed by
+   * thieves keep their reference until overwritten.
+   */
+  private static final class LocalQueue {
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final AtomicLongFieldUpdater<LocalQueue> HEAD =
+      AtomicLongFieldUpdater.newUpdater(LocalQueue.class, "head");
+    private static final AtomicLongFieldUpdater<LocalQueue> TAIL =
+      AtomicLongFieldUpdater.newUpdater(LocalQueue.class, "tail");
+
+    private final AtomicReferenceArray<Runnable> buffer = new AtomicReferenceArray<>(CAPACITY);
+    private volatile long head = 0;
+    private volatile long tail = 0;
+
+    /** Called by the owner only, returns `false` if full. */
+    boolean offer(Runnable task) {
+      final long t = tail;
+      if (t - head >= CAPACITY) return false;
+      buffer.lazySet((int) (t & MASK), task);
+      TAIL.lazySet(this, t + 1);
+      return true;
+    }
+
+    /** Called by the owner, releasing the references of the slots it consumes. */
+    Runnable poll() {
+      while (true) {
+        final long h = head;
+        if (h >= tail) return null;
+        final int index = (int) (h & MASK);
+        final Runnable task = buffer.get(index);
+        if (HEAD.compareAndSet(this, h, h + 1)) {
+          // The slot can only be reused by our own, later, offer
+          buffer.lazySet(index, null);
+          return task;
+        }
+      }
+    }
+
+    /** Called by stealing workers, which never write slots. */
+    Runnable steal() {
+      while (true) {
+        final long h = head;
+        if (h >= tail) return null;
+        final Runnable task = buffer.get((int) (h & MASK));
+        if (HEAD.compareAndSet(this, h, h + 1)) return task;
+      }
+    }
+
+    int size() {
+      return (int) Math.max(0, tail - head);
+    }
+  }
+}
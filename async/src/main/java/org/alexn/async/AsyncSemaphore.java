@@ -0,0 +1,253 @@
+package org.alexn.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A semaphore whose {@link #acquire()} is asynchronous, waiting for
+ * a permit without blocking any threads.
+ *
+ * <pre>
+ * {@code
+ * AsyncSemaphore db = new AsyncSemaphore(16);
+ *
+ * Async<Rows> rows = db.withPermit(Async.fromFuture(() -> client.query(sql)))
+ * }
+ * </pre>
+ *
+ * With a `maxWaiting` limit it doubles as a bulkhead, tasks that would
+ * exceed the limit being rejected immediately with a
+ * `RejectedExecutionException`, instead of waiting.
+ *
+ * The number of available permits and the number of waiters are kept
+ * in a single `AtomicLong`, positive for available permits, negative
+ * for waiters, updated via CAS. Waiters are kept in a lock-free queue,
+ * completed in FIFO order, on their own `Executor`. A waiter's slot is
+ * given back by whoever removes it from the queue, either the release
+ * completing it, or its cancellation.
+ */
+public final class AsyncSemaphore {
+  private final long maxWaiting;
+  private final AtomicLong state;
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+  /** Builds a semaphore with an unbounded number of waiters. */
+  public AsyncSemaphore(int permits) {
+    this(permits, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param permits is the number of available permits
+   * @param maxWaiting is the maximum number of waiters, with `0`
+   *                   meaning that acquisitions never wait
+   */
+  public AsyncSemaphore(int permits, int maxWaiting) {
+    if (permits <= 0)
+      throw new IllegalArgumentException("permits must be positive: " + permits);
+    if (maxWaiting < 0)
+      throw new IllegalArgumentException("maxWaiting must not be negative: " + maxWaiting);
+    this.state = new AtomicLong(permits);
+    this.maxWaiting = maxWaiting;
+  }
+
+  /**
+   * Returns a task that completes when a permit was acquired, to be
+   * given back via {@link #release()}.
+   *
+   * Canceling a waiting acquisition removes it from the queue. Prefer
+   * {@link #withPermit(Async)}, which also releases the permit.
+   */
+  public Async<Void> acquire() {
+    return Async.cancelable(this::acquire);
+  }
+
+  /** Acquires a permit if available, without waiting. */
+  public boolean tryAcquire() {
+    while (true) {
+      final long current = state.get();
+      if (current <= 0) return false;
+      if (state.compareAndSet(current, current - 1)) return true;
+    }
+  }
+
+  /** Gives back a permit, completing the first waiter, if any. */
+  public void release() {
+    while (true) {
+      final long current = state.get();
+      if (current >= 0) {
+        if (state.compareAndSet(current, current + 1)) return;
+        continue;
+      }
+      // A waiter got registered, but might not be in the queue yet,
+      // or it got canceled and is about to give back its slot
+      final Waiter waiter = waiters.poll();
+      if (waiter == null) {
+        Thread.yield();
+        continue;
+      }
+      // Polling the waiter makes its slot ours to give back
+      state.getAndIncrement();
+      if (waiter.complete()) return;
+      // Canceled waiter, the permit goes to the next one
+    }
+  }
+
+  /**
+   * Returns a task that executes `fa` with a permit, acquired before
+   * and released after its execution, regardless of its outcome,
+   * including cancellation.
+   */
+  public <A> Async<A> withPermit(Async<A> fa) {
+    return Async.cancelable((executor, cb) -> {
+      final WithPermit<A> task = new WithPermit<>(this, fa, executor, cb);
+      task.setAcquisition(acquire(executor, task));
+      return task;
+    });
+  }
+
+  /** Returns the number of available permits. */
+  public long available() {
+    return Math.max(0, state.get());
+  }
+
+  /** Returns the number of waiters. */
+  public long waiting() {
+    return Math.max(0, -state.get());
+  }
+
+  private Cancelable acquire(Executor executor, Callback<Void> cb) {
+    while (true) {
+      final long current = state.get();
+      if (current > 0) {
+        if (state.compareAndSet(current, current - 1)) {
+          cb.onSuccess(null);
+          return Cancelable.EMPTY;
+        }
+      } else if (-current >= maxWaiting) {
+        cb.onError(new RejectedExecutionException("Too many tasks waiting for a permit"));
+        return Cancelable.EMPTY;
+      } else if (state.compareAndSet(current, current - 1)) {
+        final Waiter waiter = new Waiter(this, executor, cb);
+        waiters.add(waiter);
+        return waiter;
+      }
+    }
+  }
+
+  /** A pending acquisition, being either waiting, completed or canceled. */
+  private static final class Waiter extends AtomicInteger implements Cancelable {
+    private static final int WAITING = 0;
+    private static final int COMPLETED = 1;
+    private static final int CANCELED = 2;
+
+    private final AsyncSemaphore semaphore;
+    private final Executor executor;
+    private final Callback<Void> cb;
+
+    Waiter(AsyncSemaphore semaphore, Executor executor, Callback<Void> cb) {
+      this.semaphore = semaphore;
+      this.executor = executor;
+      this.cb = cb;
+    }
+
+    boolean complete() {
+      if (!compareAndSet(WAITING, COMPLETED)) return false;
+      executor.execute(() -> cb.onSuccess(null));
+      return true;
+    }
+
+    @Override
+    public void cancel() {
+      if (!compareAndSet(WAITING, CANCELED)) return;
+      // Whoever removes the waiter from the queue gives back its slot,
+      // otherwise a concurrent release polled it and skips it
+      if (semaphore.waiters.remove(this)) semaphore.state.getAndIncrement();
+    }
+  }
+
+  /**
+   * Executes the task once the permit was acquired, holding the
+   * current token (the acquisition's, then the task's) for cancellation.
+   */
+  private static final class WithPermit<A> extends AtomicReference<Cancelable> implements Callback<Void>, Cancelable {
+    private static final Cancelable CANCELED = () -> {};
+
+    private final AsyncSemaphore semaphore;
+    private final Async<A> fa;
+    private final Executor executor;
+    private final Callback<A> cb;
+    private final AtomicBoolean isReleased = new AtomicBoolean(false);
+    private volatile boolean isHolding = false;
+
+    WithPermit(AsyncSemaphore semaphore, Async<A> fa, Executor executor, Callback<A> cb) {
+      this.semaphore = semaphore;
+      this.fa = fa;
+      this.executor = executor;
+      this.cb = cb;
+    }
+
+    @Override
+    public void onSuccess(Void ignored) {
+      isHolding = true;
+      if (get() == CANCELED) {
+        releaseOnce();
+        return;
+      }
+      update(fa.runCancelable(executor, new Callback<A>() {
+        @Override
+        public void onSuccess(A value) {
+          releaseOnce();
+          cb.onSuccess(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          releaseOnce();
+          cb.onError(e);
+        }
+      }));
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      cb.onError(e);
+    }
+
+    @Override
+    public void cancel() {
+      final Cancelable token = getAndSet(CANCELED);
+      if (token != null && token != CANCELED) token.cancel();
+      if (isHolding) releaseOnce();
+    }
+
+    /**
+     * Sets the token of the acquisition, unless the permit was already
+     * acquired, the task's token taking precedence.
+     */
+    void setAcquisition(Cancelable token) {
+      if (!compareAndSet(null, token) && get() == CANCELED) token.cancel();
+    }
+
+    /** Replaces the current token, unless canceled. */
+    private void update(Cancelable token) {
+      while (true) {
+        final Cancelable current = get();
+        if (current == CANCELED) {
+          token.cancel();
+          return;
+        }
+        if (compareAndSet(current, token)) return;
+      }
+    }
+
+    private void releaseOnce() {
+      if (isReleased.compareAndSet(false, true)) semaphore.release();
+    }
+  }
+}
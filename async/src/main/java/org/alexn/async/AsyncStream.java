@@ -0,0 +1,218 @@
+package org.alexn.async;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A pull-based stream of values, produced asynchronously.
+ *
+ * Each {@link #next()} call describes pulling the next element, an
+ * empty `Optional` signaling the end of the stream. Elements are only
+ * produced when pulled, which is how back-pressure works: a slow
+ * consumer simply pulls less often.
+ *
+ * <pre>
+ * {@code
+ * Async<Long> total = AsyncStream.fromIterable(ids)
+ *   .mapAsync(8, id -> fetchSize(id))
+ *   .filter(size -> size > 0)
+ *   .fold(0L, Long::sum)
+ * }
+ * </pre>
+ *
+ * A stream is a cursor with internal state, so it can be consumed
+ * only once, with pulls executed sequentially, i.e. the `Async`
+ * returned by `next()` must complete before `next()` gets called
+ * again. Streams can't contain `null` elements.
+ *
+ * The operators pulling repeatedly (e.g. `filter`, `fold`) are loops
+ * of `flatMap` steps evaluated by the run-loop, so they are stack-safe
+ * even for infinite streams, with the run-loop ceding the thread to
+ * other tasks every {@link ExecutionModel#batchSize()} steps.
+ */
+@FunctionalInterface
+public interface AsyncStream<A> {
+  /** Pulls the next element, or an empty `Optional` if the stream ended. */
+  Async<Optional<A>> next();
+
+  /** Transforms each element with the given function. */
+  default <B> AsyncStream<B> map(Function<A, B> f) {
+    return () -> next().map(opt -> opt.map(f));
+  }
+
+  /**
+   * Transforms each element with the given asynchronous function,
+   * keeping up to `parallelism` tasks in flight, elements being
+   * emitted in order.
+   *
+   * Tasks get started ahead of time, while the upstream gets pulled
+   * for filling the buffer of `parallelism` tasks.
+   */
+  default <B> AsyncStream<B> mapAsync(int parallelism, Function<A, Async<B>> f) {
+    return new MapAsyncStream<>(this, parallelism, f);
+  }
+
+  /** Keeps the elements for which `p` returns `true`. */
+  default AsyncStream<A> filter(Predicate<A> p) {
+    final AsyncStream<A> self = this;
+    return new AsyncStream<A>() {
+      @Override
+      public Async<Optional<A>> next() {
+        return self.next().flatMap(opt ->
+          !opt.isPresent() || p.test(opt.get()) ? Async.pure(opt) : next());
+      }
+    };
+  }
+
+  /** Keeps the first `n` elements, without pulling more. */
+  default AsyncStream<A> take(long n) {
+    final AsyncStream<A> self = this;
+    return new AsyncStream<A>() {
+      private long remaining = n;
+
+      @Override
+      public Async<Optional<A>> next() {
+        return Async.defer(() -> {
+          if (remaining <= 0) return Async.pure(Optional.empty());
+          remaining--;
+          return self.next();
+        });
+      }
+    };
+  }
+
+  /** Groups the elements in lists of `n`, the last one possibly being shorter. */
+  default AsyncStream<List<A>> chunk(int n) {
+    if (n <= 0)
+      throw new IllegalArgumentException("n must be positive: " + n);
+    final AsyncStream<A> self = this;
+    return new AsyncStream<List<A>>() {
+      @Override
+      public Async<Optional<List<A>>> next() {
+        return Async.defer(() -> fill(new ArrayList<>(n)));
+      }
+
+      private Async<Optional<List<A>>> fill(List<A> buffer) {
+        return self.next().flatMap(opt -> {
+          if (!opt.isPresent())
+            return Async.pure(buffer.isEmpty() ? Optional.empty() : Optional.of(buffer));
+          buffer.add(opt.get());
+          return buffer.size() >= n ? Async.pure(Optional.of(buffer)) : fill(buffer);
+        });
+      }
+    };
+  }
+
+  /**
+   * Returns a stream emitting the elements of both streams, in the
+   * order in which they become available, see {@link #merge(List)}.
+   */
+  default AsyncStream<A> merge(AsyncStream<A> other) {
+    return merge(Arrays.asList(this, other));
+  }
+
+  /**
+   * Consumes the stream, combining its elements with `f`, starting
+   * from `initial`.
+   */
+  default <B> Async<B> fold(B initial, BiFunction<B, A, B> f) {
+    return next().flatMap(opt -> opt.isPresent()
+      ? fold(f.apply(initial, opt.get()), f)
+      : Async.pure(initial));
+  }
+
+  /** Consumes the stream, returning its elements. */
+  default Async<List<A>> toList() {
+    return this.<List<A>>fold(new ArrayList<>(), (list, a) -> {
+      list.add(a);
+      return list;
+    });
+  }
+
+  /**
+   * Converts this stream to a Reactive Streams `Publisher`, pulling
+   * elements on the `Executor` only while there's outstanding demand,
+   * plus one element pulled ahead, such that errors and the end of the
+   * stream get signaled without demand.
+   *
+   * Since streams can be consumed once, the publisher accepts a single
+   * subscriber, others getting signaled an `IllegalStateException`.
+   */
+  default Publisher<A> toPublisher(Executor executor) {
+    return ReactiveStreams.toPublisher(this, executor);
+  }
+
+  /**
+   * Returns a stream emitting the elements of the given streams, in
+   * the order in which they become available.
+   *
+   * Each source has at most one pull in flight, started while fewer
+   * than one element per source is buffered, so the merge doesn't
+   * buffer unboundedly. The first error ends the stream.
+   */
+  static <A> AsyncStream<A> merge(List<AsyncStream<A>> sources) {
+    return new MergeStream<>(sources);
+  }
+
+  /**
+   * Returns a stream emitting the elements of the given Reactive
+   * Streams `Publisher`, subscribing on the first pull.
+   *
+   * At most `bufferSize` elements are requested ahead of the consumer,
+   * the demand being replenished as elements get pulled, so the
+   * buffer stays bounded by `bufferSize`.
+   */
+  static <A> AsyncStream<A> fromPublisher(Publisher<A> publisher, int bufferSize) {
+    return ReactiveStreams.fromPublisher(publisher, bufferSize);
+  }
+
+  /** Returns an empty stream. */
+  static <A> AsyncStream<A> empty() {
+    return () -> Async.pure(Optional.empty());
+  }
+
+  /** Returns a stream emitting the elements of the given `Iterable`. */
+  static <A> AsyncStream<A> fromIterable(Iterable<A> iterable) {
+    return new AsyncStream<A>() {
+      private Iterator<A> cursor;
+
+      @Override
+      public Async<Optional<A>> next() {
+        return Async.eval(() -> {
+          if (cursor == null) cursor = iterable.iterator();
+          return cursor.hasNext() ? Optional.of(cursor.next()) : Optional.empty();
+        });
+      }
+    };
+  }
+
+  /** Returns the infinite stream `seed`, `f(seed)`, `f(f(seed))`, etc. */
+  static <A> AsyncStream<A> iterate(A seed, UnaryOperator<A> f) {
+    return new AsyncStream<A>() {
+      private A current;
+
+      @Override
+      public Async<Optional<A>> next() {
+        return Async.eval(() -> {
+          current = current == null ? seed : f.apply(current);
+          return Optional.of(current);
+        });
+      }
+    };
+  }
+
+  /** Returns the infinite stream of the results of executing `fa` repeatedly. */
+  static <A> AsyncStream<A> repeat(Async<A> fa) {
+    return () -> fa.map(Optional::of);
+  }
+}
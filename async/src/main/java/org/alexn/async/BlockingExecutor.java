@@ -0,0 +1,35 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `Executor` used by {@link Async#blocking(java.util.function.Supplier)}.
+ *
+ * On older JDKs this is an unbounded pool of daemon threads, with idle
+ * threads being released after 60 seconds. On JDK 21+ this class gets
+ * replaced, via the multi-release JAR, by a version that starts a
+ * virtual thread per task.
+ */
+final class BlockingExecutor {
+  private BlockingExecutor() {}
+
+  static final Executor INSTANCE = create();
+
+  private static ExecutorService create() {
+    final AtomicInteger counter = new AtomicInteger(0);
+    return new ThreadPoolExecutor(
+      0, Integer.MAX_VALUE,
+      60L, TimeUnit.SECONDS,
+      new SynchronousQueue<>(),
+      r -> {
+        final Thread th = new Thread(r, "async-blocking-" + counter.incrementAndGet());
+        th.setDaemon(true);
+        return th;
+      });
+  }
+}
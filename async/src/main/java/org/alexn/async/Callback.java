@@ -0,0 +1,24 @@
+package org.alexn.async;
+
+@FunctionalInterface
+public interface Callback<A> {
+  /** To be called when the async process ends in success. */
+  void onSuccess(A value);
+
+  /** To be called when the async process ends in error. */
+  default void onError(Throwable e) {
+    e.printStackTrace();
+  }
+
+  /**
+   * Wraps the given callback implementation into one that
+   * can be safely called multiple times, ensuring "idempotence".
+   *
+   * Callbacks that are already safe are returned as they are.
+   */
+  static <A> Callback<A> safe(Callback<A> underlying) {
+    return underlying instanceof SafeCallback
+      ? underlying
+      : new SafeCallback<>(underlying);
+  }
+}
@@ -0,0 +1,20 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * A token that can be used for canceling a running process, see
+ * {@link Async#runCancelable(Executor, Callback)} and
+ * {@link Async#cancelable(BiFunction)}.
+ *
+ * Implementations need to be thread-safe and idempotent.
+ */
+@FunctionalInterface
+public interface Cancelable {
+  /** A token that doesn't do anything, for processes that can't be canceled. */
+  Cancelable EMPTY = () -> {};
+
+  /** Cancels the process, if still active. */
+  void cancel();
+}
@@ -0,0 +1,14 @@
+package org.alexn.async;
+
+/**
+ * Signaled by tasks protected by an {@link AsyncCircuitBreaker}
+ * while the breaker is open, instead of executing them.
+ *
+ * Being signaled on every rejected call, it doesn't fill in its stack
+ * trace, which would be meaningless anyway.
+ */
+public final class CircuitBreakerOpenException extends RuntimeException {
+  public CircuitBreakerOpenException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,42 @@
+package org.alexn.async;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed number of {@link Cancelable} slots, all canceled together,
+ * used by combinators executing tasks in parallel.
+ *
+ * Tokens can be assigned after {@link #cancel()} was called, in which
+ * case they get canceled on assignment. Each token gets canceled at
+ * most once.
+ */
+final class CompositeCancelable implements Cancelable {
+  private static final Cancelable CANCELED = () -> {};
+
+  private final AtomicReferenceArray<Cancelable> tokens;
+  private volatile boolean canceled = false;
+
+  CompositeCancelable(int size) {
+    this.tokens = new AtomicReferenceArray<>(size);
+  }
+
+  void set(int index, Cancelable token) {
+    if (!tokens.compareAndSet(index, null, token)) token.cancel();
+  }
+
+  boolean isCanceled() {
+    return canceled;
+  }
+
+  /** Cancels the token at `index`, leaving the others untouched. */
+  void cancel(int index) {
+    final Cancelable ref = tokens.getAndSet(index, CANCELED);
+    if (ref != null && ref != CANCELED) ref.cancel();
+  }
+
+  @Override
+  public void cancel() {
+    canceled = true;
+    for (int i = 0; i < tokens.length(); i++) cancel(i);
+  }
+}
@@ -0,0 +1,98 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Describes how often the run-loop gives up the current thread,
+ * re-submitting itself to the `Executor`, for the purpose of
+ * fairness.
+ *
+ * A long `flatMap` driven loop can keep the current thread busy
+ * forever, so every {@link #batchSize()} `map` or `flatMap` steps the
+ * run-loop reschedules the rest of the work, giving other concurrent
+ * tasks a chance to execute.
+ *
+ * The execution model travels with the `Executor`:
+ *
+ * <pre>
+ * {@code
+ * Executor ec = ExecutionModel.batched(512).on(pool)
+ *
+ * task.run(ec, cb)
+ * }
+ * </pre>
+ *
+ * Executors that aren't configured use {@link #DEFAULT}, which can
+ * be changed with the `org.alexn.async.batchSize` system property.
+ */
+public final class ExecutionModel {
+  /** Never re-submits the run-loop, synchronous steps all execute on the current thread. */
+  public static final ExecutionModel SYNCHRONOUS = new ExecutionModel(0);
+
+  /** Re-submits the run-loop after every `map` or `flatMap` step. */
+  public static final ExecutionModel ALWAYS_ASYNC = new ExecutionModel(1);
+
+  /** Used for executors not configured via {@link #on(Executor)}. */
+  public static final ExecutionModel DEFAULT =
+    batched(Integer.getInteger("org.alexn.async.batchSize", 1024));
+
+  private final int batchSize;
+
+  private ExecutionModel(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Re-submits the run-loop every `batchSize` steps, with `0`
+   * meaning {@link #SYNCHRONOUS}, i.e. never re-submitting.
+   *
+   * @param batchSize is the number of steps, must be `>= 0`
+   */
+  public static ExecutionModel batched(int batchSize) {
+    if (batchSize < 0)
+      throw new IllegalArgumentException("batchSize must be >= 0: " + batchSize);
+    return new ExecutionModel(batchSize);
+  }
+
+  /**
+   * Returns the number of steps after which the run-loop gets
+   * re-submitted, with `0` meaning never.
+   */
+  public int batchSize() {
+    return batchSize;
+  }
+
+  /** Returns an `Executor` delegating to `executor`, configured with this model. */
+  public Executor on(Executor executor) {
+    if (executor instanceof Configured)
+      executor = ((Configured) executor).underlying;
+    return new Configured(executor, this);
+  }
+
+  /** Returns the model configured for `executor`, see {@link #on(Executor)}. */
+  static ExecutionModel of(Executor executor) {
+    return executor instanceof Configured
+      ? ((Configured) executor).model
+      : DEFAULT;
+  }
+
+  @Override
+  public String toString() {
+    return "ExecutionModel(batchSize=" + batchSize + ")";
+  }
+
+  private static final class Configured implements Executor {
+    private final Executor underlying;
+    private final ExecutionModel model;
+
+    Configured(Executor underlying, ExecutionModel model) {
+      this.underlying = underlying;
+      this.model = model;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      underlying.execute(command);
+    }
+  }
+}
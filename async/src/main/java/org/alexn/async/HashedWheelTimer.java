@@ -0,0 +1,194 @@
+package org.alexn.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Scheduler} implemented as a hashed wheel timer, see
+ * <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf">Hashed
+ * and Hierarchical Timing Wheels</a>.
+ *
+ * Scheduled tasks are placed in a circular array of buckets, indexed
+ * by their deadline, with a single thread advancing through the wheel
+ * one bucket per tick. Scheduling and cancellation are O(1), only
+ * enqueuing the task, or the canceled task, for the timer's thread,
+ * regardless of the number of pending tasks, whereas the precision
+ * is given by the tick duration.
+ *
+ * Tasks are executed on the timer's thread, so they should be short.
+ */
+public final class HashedWheelTimer implements Scheduler {
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final long startTime;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> canceled = new ConcurrentLinkedQueue<>();
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  /**
+   * @param name is the name of the timer's thread
+   * @param tickDuration is the timer's precision
+   * @param ticksPerWheel is the number of buckets, rounded up to a power of 2
+   */
+  public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    if (tickDuration <= 0)
+      throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+    if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30))
+      throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+
+    int size = 1;
+    while (size < ticksPerWheel) size <<= 1;
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+    this.mask = size - 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.startTime = System.nanoTime();
+
+    this.worker = new Thread(this::work, name);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  static HashedWheelTimer global() {
+    return Global.INSTANCE;
+  }
+
+  @Override
+  public Cancelable schedule(long delay, TimeUnit unit, Runnable task) {
+    if (!running)
+      throw new IllegalStateException("HashedWheelTimer was shut down");
+    final Timeout timeout = new Timeout(this, task,
+      System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay)));
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /** Stops the timer's thread, pending tasks being discarded. */
+  public void shutdown() {
+    running = false;
+    LockSupport.unpark(worker);
+  }
+
+  private void work() {
+    long tick = 0;
+    while (running) {
+      final long deadline = tickNanos * (tick + 1);
+      long sleepNanos;
+      while (running && (sleepNanos = deadline - (System.nanoTime() - startTime)) > 0)
+        LockSupport.parkNanos(this, sleepNanos);
+      if (!running) return;
+
+      removeCanceled();
+      transferPending(tick);
+      wheel[(int) (tick & mask)].expire(deadline);
+      tick++;
+    }
+  }
+
+  private void removeCanceled() {
+    Timeout timeout;
+    while ((timeout = canceled.poll()) != null) {
+      if (timeout.bucket != null) timeout.bucket.remove(timeout);
+    }
+  }
+
+  private void transferPending(long tick) {
+    Timeout timeout;
+    while ((timeout = pending.poll()) != null) {
+      if (timeout.get() == Timeout.CANCELED) continue;
+      final long expiresAt = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (expiresAt - tick) / wheel.length;
+      // Already expired tasks go in the current bucket
+      wheel[(int) (Math.max(expiresAt, tick) & mask)].add(timeout);
+    }
+  }
+
+  /** A scheduled task, with its state being INIT, CANCELED or EXPIRED. */
+  private static final class Timeout extends AtomicInteger implements Cancelable {
+    static final int INIT = 0;
+    static final int CANCELED = 1;
+    static final int EXPIRED = 2;
+
+    final HashedWheelTimer timer;
+    final Runnable task;
+    final long deadline;
+
+    // Owned by the timer's thread
+    long remainingRounds;
+    Bucket bucket;
+    Timeout prev;
+    Timeout next;
+
+    Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void cancel() {
+      if (compareAndSet(INIT, CANCELED)) timer.canceled.add(this);
+    }
+
+    void expire() {
+      if (!compareAndSet(INIT, EXPIRED)) return;
+      try {
+        task.run();
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /** Doubly linked list of tasks, owned by the timer's thread. */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.prev != null) timeout.prev.next = timeout.next;
+      if (timeout.next != null) timeout.next.prev = timeout.prev;
+      if (timeout == head) head = timeout.next;
+      if (timeout == tail) tail = timeout.prev;
+      timeout.prev = timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    void expire(long deadline) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        final Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.get() == Timeout.CANCELED) {
+          remove(timeout);
+        } else if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+
+  private static final class Global {
+    static final HashedWheelTimer INSTANCE =
+      new HashedWheelTimer("async-timer", 10, TimeUnit.MILLISECONDS, 512);
+  }
+}
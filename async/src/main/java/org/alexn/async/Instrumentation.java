@@ -0,0 +1,51 @@
+package org.alexn.async;
+
+/**
+ * Holds the installed {@link AsyncMetrics}, with call sites in the
+ * run-loop being guarded by {@link #enabled}, which is a constant
+ * for the JIT.
+ */
+final class Instrumentation {
+  private Instrumentation() {}
+
+  static final AsyncMetrics metrics = load();
+  static final boolean enabled = metrics != AsyncMetrics.NOOP;
+
+  private static AsyncMetrics load() {
+    final String name = System.getProperty("org.alexn.async.metrics");
+    if (name == null || name.isEmpty()) return AsyncMetrics.NOOP;
+    try {
+      return (AsyncMetrics) Class.forName(name).getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot instantiate AsyncMetrics: " + name, e);
+    }
+  }
+
+  /** Wraps a task submitted to the `Executor`, for measuring its wait time. */
+  static Runnable timed(Runnable task) {
+    final long submittedAt = System.nanoTime();
+    return () -> {
+      metrics.executorHop(System.nanoTime() - submittedAt);
+      task.run();
+    };
+  }
+
+  /** Wraps the final callback of a run-loop, for measuring its execution time. */
+  static <A> Callback<A> timed(Callback<A> cb) {
+    metrics.taskStarted();
+    final long startedAt = System.nanoTime();
+    return new Callback<A>() {
+      @Override
+      public void onSuccess(A value) {
+        metrics.taskCompleted(false, System.nanoTime() - startedAt);
+        cb.onSuccess(value);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        metrics.taskCompleted(true, System.nanoTime() - startedAt);
+        cb.onError(e);
+      }
+    };
+  }
+}
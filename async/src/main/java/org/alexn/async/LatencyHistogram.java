@@ -0,0 +1,77 @@
+package org.alexn.async;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of non-negative `long` values, with log-linear
+ * buckets, in the style of <a href="http://hdrhistogram.org/">HdrHistogram</a>.
+ *
+ * Values below 128 are recorded exactly, whereas larger values are
+ * grouped in buckets of 64 per power of 2, for a relative error below
+ * 1.6% over the whole `long` range, in a fixed array of 3712 counters.
+ * Recording is a single atomic increment, without allocations.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  private static final int SIZE = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF;
+
+  private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+
+  /** Records the given value, with negative values being recorded as `0`. */
+  public void record(long value) {
+    counts.getAndIncrement(indexOf(Math.max(0, value)));
+  }
+
+  /** Returns the number of recorded values. */
+  public long count() {
+    long total = 0;
+    for (int i = 0; i < SIZE; i++) total += counts.get(i);
+    return total;
+  }
+
+  /**
+   * Returns the value below which the given percentage of recorded
+   * values fall, as the highest value of its bucket, or `0` if empty.
+   *
+   * @param percentile is in `[0, 100]`
+   */
+  public long valueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("percentile out of range: " + percentile);
+
+    final long[] snapshot = new long[SIZE];
+    long total = 0;
+    for (int i = 0; i < SIZE; i++) total += (snapshot[i] = counts.get(i));
+    if (total == 0) return 0;
+
+    final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long cumulative = 0;
+    for (int i = 0; i < SIZE; i++) {
+      cumulative += snapshot[i];
+      if (cumulative >= target) return highestValueAt(i);
+    }
+    return highestValueAt(SIZE - 1);
+  }
+
+  /** Clears the recorded values, not atomically with concurrent recording. */
+  public void reset() {
+    for (int i = 0; i < SIZE; i++) counts.set(i, 0);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    final int mantissa = (int) (value >>> shift);
+    return SUB_BUCKETS + (shift - 1) * HALF + (mantissa - HALF);
+  }
+
+  static long highestValueAt(int index) {
+    if (index < SUB_BUCKETS) return index;
+    final int k = index - SUB_BUCKETS;
+    final int shift = k / HALF + 1;
+    final long mantissa = k % HALF + HALF;
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
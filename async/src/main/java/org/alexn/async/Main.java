@@ -24,7 +24,7 @@ public class Main {
   }
 
   static Async<String> readLine() {
-    return Async.eval(() -> {
+    return Async.blocking(() -> {
       try (Scanner in = new Scanner(System.in)) {
         return in.next();
       }
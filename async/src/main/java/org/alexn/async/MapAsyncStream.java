@@ -0,0 +1,69 @@
+package org.alexn.async;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Implementation for {@link AsyncStream#mapAsync(int, Function)}.
+ *
+ * Keeps a FIFO buffer of started tasks, refilled from the upstream on
+ * each pull, with each task being started via {@link Async#memoize()},
+ * such that its result can be awaited later.
+ */
+final class MapAsyncStream<A, B> implements AsyncStream<B> {
+  private static final Callback<Object> IGNORE = new Callback<Object>() {
+    @Override
+    public void onSuccess(Object value) {}
+
+    @Override
+    public void onError(Throwable e) {}
+  };
+
+  private final AsyncStream<A> source;
+  private final int parallelism;
+  private final Function<A, Async<B>> f;
+  // Only accessed by pulls, which are sequential
+  private final ArrayDeque<Async<B>> buffer = new ArrayDeque<>();
+  private boolean isDone = false;
+
+  MapAsyncStream(AsyncStream<A> source, int parallelism, Function<A, Async<B>> f) {
+    if (parallelism <= 0)
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    this.source = source;
+    this.parallelism = parallelism;
+    this.f = f;
+  }
+
+  @Override
+  public Async<Optional<B>> next() {
+    return Async.defer(() -> fill().flatMap(ignored -> {
+      final Async<B> head = buffer.poll();
+      return head == null ? Async.pure(Optional.empty()) : head.map(Optional::of);
+    }));
+  }
+
+  private Async<Void> fill() {
+    if (isDone || buffer.size() >= parallelism) return Async.pure(null);
+    return source.next().flatMap(opt -> {
+      if (!opt.isPresent()) {
+        isDone = true;
+        return Async.pure(null);
+      }
+      return start(f.apply(opt.get())).flatMap(started -> {
+        buffer.add(started);
+        return fill();
+      });
+    });
+  }
+
+  /** Starts `fa`, returning an `Async` that awaits its result. */
+  @SuppressWarnings("unchecked")
+  private static <B> Async<Async<B>> start(Async<B> fa) {
+    return Async.create((executor, cb) -> {
+      final Async<B> memo = fa.memoize();
+      memo.run(executor, (Callback<B>) (Callback<?>) IGNORE);
+      cb.onSuccess(memo);
+    });
+  }
+}
@@ -0,0 +1,166 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation for {@link Async#memoize()} and {@link Async#cached(Duration)}.
+ *
+ * The current computation is a {@link Memo}, replaced via CAS once
+ * expired, such that a single computation of the source is in flight
+ * at any point in time.
+ */
+final class Memoized<A> {
+  private final Async<A> source;
+  private final long ttlNanos;
+  private final boolean cacheErrors;
+  private final AtomicReference<Memo<A>> current = new AtomicReference<>();
+
+  private Memoized(Async<A> source, long ttlNanos, boolean cacheErrors) {
+    this.source = source;
+    this.ttlNanos = ttlNanos;
+    this.cacheErrors = cacheErrors;
+  }
+
+  static <A> Async<A> memoize(Async<A> source) {
+    return new Memoized<>(source, Long.MAX_VALUE, true).toAsync();
+  }
+
+  static <A> Async<A> cached(Async<A> source, Duration ttl) {
+    if (ttl.isNegative() || ttl.isZero())
+      throw new IllegalArgumentException("ttl must be positive: " + ttl);
+    return cached(source, ttl.toNanos());
+  }
+
+  /** Like {@link #cached(Async, Duration)}, with `Long.MAX_VALUE` meaning no expiry. */
+  static <A> Async<A> cached(Async<A> source, long ttlNanos) {
+    return new Memoized<>(source, ttlNanos, false).toAsync();
+  }
+
+  private Async<A> toAsync() {
+    return Async.defer(() -> {
+      final Memo<A> memo = acquire();
+      final Object state = memo.get();
+      // Fast path, no async boundary needed once completed
+      if (state instanceof Outcome) return ((Outcome) state).toAsync();
+      return Async.create(memo::subscribe);
+    });
+  }
+
+  private Memo<A> acquire() {
+    while (true) {
+      final Memo<A> memo = current.get();
+      if (memo != null && !isExpired(memo)) return memo;
+      final Memo<A> update = new Memo<>(source);
+      if (current.compareAndSet(memo, update)) return update;
+    }
+  }
+
+  private boolean isExpired(Memo<A> memo) {
+    final Object state = memo.get();
+    if (!(state instanceof Outcome)) return false;
+    final Outcome outcome = (Outcome) state;
+    if (outcome.error != null && !cacheErrors) return true;
+    return System.nanoTime() - outcome.completedAt >= ttlNanos;
+  }
+
+  /**
+   * A single execution of the source, with its state being either
+   * `null` (not started), a list of {@link Subscriber}, or the final
+   * {@link Outcome}.
+   */
+  private static final class Memo<A> extends AtomicReference<Object> implements Callback<A> {
+    private final Async<A> source;
+
+    Memo(Async<A> source) {
+      this.source = source;
+    }
+
+    void subscribe(Executor executor, Callback<A> cb) {
+      while (true) {
+        final Object state = get();
+        if (state instanceof Outcome) {
+          ((Outcome) state).signal(cb);
+          return;
+        }
+        final Subscriber next = new Subscriber(executor, cb, (Subscriber) state);
+        if (compareAndSet(state, next)) {
+          // First subscriber starts the source
+          if (state == null) source.run(executor, this);
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void onSuccess(A value) {
+      complete(new Outcome(value, null));
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      complete(new Outcome(null, e));
+    }
+
+    private void complete(Outcome outcome) {
+      Object state;
+      do {
+        state = get();
+        if (state instanceof Outcome) return;
+      } while (!compareAndSet(state, outcome));
+
+      Subscriber cursor = reverse((Subscriber) state);
+      while (cursor != null) {
+        final Subscriber subscriber = cursor;
+        subscriber.executor.execute(() -> outcome.signal(subscriber.cb));
+        cursor = cursor.next;
+      }
+    }
+
+    /** Subscribers are pushed on a stack, reversing for FIFO order. */
+    private static Subscriber reverse(Subscriber list) {
+      Subscriber result = null;
+      while (list != null) {
+        result = new Subscriber(list.executor, list.cb, result);
+        list = list.next;
+      }
+      return result;
+    }
+  }
+
+  /** Immutable linked list of subscribers waiting for the result. */
+  private static final class Subscriber {
+    final Executor executor;
+    final Callback<?> cb;
+    final Subscriber next;
+
+    Subscriber(Executor executor, Callback<?> cb, Subscriber next) {
+      this.executor = executor;
+      this.cb = cb;
+      this.next = next;
+    }
+  }
+
+  private static final class Outcome {
+    final Object value;
+    final Throwable error;
+    final long completedAt = System.nanoTime();
+
+    Outcome(Object value, Throwable error) {
+      this.value = value;
+      this.error = error;
+    }
+
+    @SuppressWarnings("unchecked")
+    <A> void signal(Callback<A> cb) {
+      if (error != null) cb.onError(error);
+      else cb.onSuccess((A) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    <A> Async<A> toAsync() {
+      return error != null ? Async.raiseError(error) : Async.pure((A) value);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.alexn.async;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementation for {@link AsyncStream#merge(List)}.
+ *
+ * Each source has at most one pull in flight, its elements going in a
+ * buffer of at most one element per source, or straight to the waiting
+ * consumer. The state is guarded by the instance's monitor, callbacks
+ * being signaled outside of it.
+ */
+final class MergeStream<A> implements AsyncStream<A> {
+  private final Object[] sources;
+  private final boolean[] inFlight;
+  private final boolean[] isDone;
+  private final ArrayDeque<A> ready = new ArrayDeque<>();
+  private int active;
+  private Throwable error = null;
+  private Callback<Optional<A>> waiting = null;
+
+  MergeStream(List<AsyncStream<A>> sources) {
+    this.sources = sources.toArray();
+    this.inFlight = new boolean[this.sources.length];
+    this.isDone = new boolean[this.sources.length];
+    this.active = this.sources.length;
+  }
+
+  @Override
+  public Async<Optional<A>> next() {
+    return Async.create((executor, cb) -> {
+      final Optional<A> result;
+      final Throwable e;
+      synchronized (this) {
+        e = error;
+        if (e != null || !ready.isEmpty() || active == 0) {
+          result = e != null || ready.isEmpty() ? Optional.empty() : Optional.of(ready.poll());
+        } else {
+          result = null;
+          waiting = cb;
+        }
+      }
+      if (e != null) cb.onError(e);
+      else if (result != null) cb.onSuccess(result);
+      request(executor);
+    });
+  }
+
+  /** Starts pulls from the sources that have none in flight, while the buffer has room. */
+  private void request(Executor executor) {
+    for (int i = 0; i < sources.length; i++) {
+      synchronized (this) {
+        if (inFlight[i] || isDone[i] || error != null || ready.size() >= sources.length) continue;
+        inFlight[i] = true;
+      }
+      pull(i, executor);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void pull(int index, Executor executor) {
+    ((AsyncStream<A>) sources[index]).next().run(executor, new Callback<Optional<A>>() {
+      @Override
+      public void onSuccess(Optional<A> value) {
+        final Callback<Optional<A>> cb;
+        final Optional<A> result;
+        synchronized (MergeStream.this) {
+          inFlight[index] = false;
+          if (!value.isPresent()) {
+            isDone[index] = true;
+            active--;
+          } else {
+            ready.add(value.get());
+          }
+          cb = waiting;
+          if (cb == null || (ready.isEmpty() && active > 0)) {
+            result = null;
+          } else {
+            waiting = null;
+            result = ready.isEmpty() ? Optional.empty() : Optional.of(ready.poll());
+          }
+        }
+        if (result != null) cb.onSuccess(result);
+        // Keeps pulling for the waiting consumer, or for refilling the buffer
+        if (value.isPresent()) request(executor);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        final Callback<Optional<A>> cb;
+        synchronized (MergeStream.this) {
+          inFlight[index] = false;
+          if (error != null) return;
+          error = e;
+          cb = waiting;
+          waiting = null;
+        }
+        if (cb != null) cb.onError(e);
+      }
+    });
+  }
+}
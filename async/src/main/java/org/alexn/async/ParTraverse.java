@@ -0,0 +1,228 @@
+package org.alexn.async;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Implementation for {@link Async#parTraverseN(int, List, Function)}
+ * and {@link Async#parTraverseUnorderedN(int, List, Function)}.
+ *
+ * At most `maxConcurrency` workers get started, each of them pulling
+ * the next element from a shared cursor when its current task completes,
+ * so no more than `maxConcurrency` tasks are in flight at any time.
+ * The unordered variant is the {@link Unordered} stream, emitting each
+ * result as soon as its task completes.
+ *
+ * On error, or on cancellation, the cursor is moved past the end and
+ * the tasks in flight get canceled.
+ */
+@SuppressWarnings("unchecked")
+final class ParTraverse<A, B> {
+  private final Object[] elements;
+  private final Function<A, Async<B>> f;
+  private final Executor executor;
+  private final Callback<List<B>> cb;
+
+  private final Object[] results;
+  private final AtomicInteger cursor = new AtomicInteger(0);
+  private final AtomicInteger remaining;
+  private final CompositeCancelable tokens;
+
+  private ParTraverse(Object[] elements, Function<A, Async<B>> f,
+                      Executor executor, Callback<List<B>> cb) {
+    this.elements = elements;
+    this.f = f;
+    this.executor = executor;
+    this.cb = cb;
+    this.results = new Object[elements.length];
+    this.remaining = new AtomicInteger(elements.length);
+    this.tokens = new CompositeCancelable(elements.length);
+  }
+
+  static <A, B> Async<List<B>> apply(int maxConcurrency, List<A> list, Function<A, Async<B>> f) {
+    checkConcurrency(maxConcurrency);
+
+    return Async.cancelable((executor, cb) -> {
+      // Copy, for random access
+      final Object[] elements = list.toArray();
+      if (elements.length == 0) {
+        cb.onSuccess(Collections.emptyList());
+        return Cancelable.EMPTY;
+      }
+      final ParTraverse<A, B> state = new ParTraverse<>(elements, f, executor, cb);
+      final int workers = Math.min(maxConcurrency, elements.length);
+      for (int i = 0; i < workers; i++) state.next();
+      return state::stop;
+    });
+  }
+
+  static <A, B> AsyncStream<B> unordered(int maxConcurrency, List<A> list, Function<A, Async<B>> f) {
+    checkConcurrency(maxConcurrency);
+    return new Unordered<>(maxConcurrency, list, f);
+  }
+
+  private static void checkConcurrency(int maxConcurrency) {
+    if (maxConcurrency <= 0)
+      throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+  }
+
+  /** Pulls the next element and starts its task, if any left. */
+  private void next() {
+    final int index = cursor.getAndIncrement();
+    if (index >= elements.length) return;
+
+    final Async<B> task;
+    try {
+      task = f.apply((A) elements[index]);
+    } catch (Exception e) {
+      signalError(e);
+      return;
+    }
+
+    tokens.set(index, task.runCancelable(executor, new Callback<B>() {
+      @Override
+      public void onSuccess(B value) {
+        results[index] = value;
+        if (remaining.decrementAndGet() == 0)
+          cb.onSuccess((List<B>) Arrays.asList(results));
+        else
+          next();
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        signalError(e);
+      }
+    }));
+  }
+
+  private void signalError(Throwable e) {
+    stop();
+    cb.onError(e);
+  }
+
+  private void stop() {
+    // Stops workers from pulling new elements
+    cursor.set(elements.length);
+    tokens.cancel();
+  }
+
+  /**
+   * Stream for {@link Async#parTraverseUnorderedN(int, List, Function)},
+   * starting the workers on the first pull, on the pull's `Executor`.
+   *
+   * Completed results are buffered until pulled, the buffer being
+   * bounded by the size of the list. The state is guarded by the
+   * instance's monitor, callbacks being signaled outside of it.
+   */
+  private static final class Unordered<A, B> implements AsyncStream<B> {
+    private final int maxConcurrency;
+    private final List<A> list;
+    private final Function<A, Async<B>> f;
+
+    private final ArrayDeque<B> results = new ArrayDeque<>();
+    private Object[] elements = null;
+    private CompositeCancelable tokens;
+    private Executor executor;
+    private int cursor = 0;
+    private int remaining = 0;
+    private Throwable error = null;
+    private Callback<Optional<B>> waiting = null;
+
+    Unordered(int maxConcurrency, List<A> list, Function<A, Async<B>> f) {
+      this.maxConcurrency = maxConcurrency;
+      this.list = list;
+      this.f = f;
+    }
+
+    @Override
+    public Async<Optional<B>> next() {
+      return Async.create((executor, cb) -> {
+        int workers = 0;
+        final B value;
+        final Throwable e;
+        final boolean isCompleted;
+        synchronized (this) {
+          if (elements == null) {
+            // Copy, for random access
+            elements = list.toArray();
+            tokens = new CompositeCancelable(elements.length);
+            remaining = elements.length;
+            this.executor = executor;
+            workers = Math.min(maxConcurrency, elements.length);
+          }
+          value = results.poll();
+          if (value != null) remaining--;
+          e = value == null ? error : null;
+          isCompleted = value == null && e == null && remaining == 0;
+          if (value == null && e == null && !isCompleted) waiting = cb;
+        }
+        for (int i = 0; i < workers; i++) startNext();
+        if (value != null) cb.onSuccess(Optional.of(value));
+        else if (e != null) cb.onError(e);
+        else if (isCompleted) cb.onSuccess(Optional.empty());
+      });
+    }
+
+    /** Pulls the next element and starts its task, if any left. */
+    private void startNext() {
+      final int index;
+      synchronized (this) {
+        if (error != null || cursor >= elements.length) return;
+        index = cursor++;
+      }
+
+      final Async<B> task;
+      try {
+        task = f.apply((A) elements[index]);
+      } catch (Exception e) {
+        signalError(e);
+        return;
+      }
+
+      tokens.set(index, task.runCancelable(executor, new Callback<B>() {
+        @Override
+        public void onSuccess(B value) {
+          if (value == null) {
+            signalError(new NullPointerException("parTraverseUnorderedN task returned null"));
+            return;
+          }
+          final Callback<Optional<B>> cb;
+          synchronized (Unordered.this) {
+            if (error != null) return;
+            cb = waiting;
+            waiting = null;
+            if (cb == null) results.add(value);
+            else remaining--;
+          }
+          if (cb != null) cb.onSuccess(Optional.of(value));
+          startNext();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          signalError(e);
+        }
+      }));
+    }
+
+    private void signalError(Throwable e) {
+      final Callback<Optional<B>> cb;
+      synchronized (this) {
+        if (error != null) return;
+        error = e;
+        results.clear();
+        cb = waiting;
+        waiting = null;
+      }
+      tokens.cancel();
+      if (cb != null) cb.onError(e);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation for {@link Async#race(Async, Async)},
+ * {@link Async#firstSuccessOf(List)} and
+ * {@link Async#hedge(Async, Duration, int, Scheduler)}.
+ *
+ * The first result to be accepted wins, via a CAS on `isActive`,
+ * later results being ignored, while the other tasks get canceled.
+ */
+final class Race {
+  private Race() {}
+
+  static <A> Async<A> apply(List<Async<A>> list, boolean firstSuccess) {
+    return Async.cancelable((executor, cb) -> {
+      final Object[] tasks = list.toArray();
+      if (tasks.length == 0) {
+        cb.onError(new NoSuchElementException("Cannot race an empty list"));
+        return Cancelable.EMPTY;
+      }
+
+      final AtomicBoolean isActive = new AtomicBoolean(true);
+      final AtomicInteger remaining = new AtomicInteger(tasks.length);
+      final CompositeCancelable tokens = new CompositeCancelable(tasks.length);
+
+      for (int i = 0; i < tasks.length; i++) {
+        @SuppressWarnings("unchecked")
+        final Async<A> task = (Async<A>) tasks[i];
+        tokens.set(i, task.runCancelable(executor, new Callback<A>() {
+          @Override
+          public void onSuccess(A value) {
+            if (isActive.compareAndSet(true, false)) {
+              tokens.cancel();
+              cb.onSuccess(value);
+            }
+          }
+
+          @Override
+          public void onError(Throwable e) {
+            // With `firstSuccess`, the last error gets signaled
+            if (firstSuccess && remaining.decrementAndGet() > 0) return;
+            if (isActive.compareAndSet(true, false)) {
+              tokens.cancel();
+              cb.onError(e);
+            }
+          }
+        }));
+      }
+      return tokens;
+    });
+  }
+
+  static <A> Async<A> hedge(Async<A> source, Duration delay, int maxAttempts, Scheduler scheduler) {
+    if (maxAttempts <= 0)
+      throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+    return Async.cancelable((executor, cb) ->
+      new Hedge<>(source, delay.toNanos(), maxAttempts, scheduler, executor, cb).start());
+  }
+
+  /**
+   * Starts a new attempt whenever the previous one fails, or when it
+   * doesn't complete within `delayNanos`, for at most `maxAttempts`.
+   */
+  private static final class Hedge<A> {
+    private final Async<A> source;
+    private final long delayNanos;
+    private final int maxAttempts;
+    private final Scheduler scheduler;
+    private final Executor executor;
+    private final Callback<A> cb;
+
+    private final AtomicBoolean isActive = new AtomicBoolean(true);
+    private final AtomicInteger started = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    // Attempts, followed by the timers that start them
+    private final CompositeCancelable tokens;
+
+    Hedge(Async<A> source, long delayNanos, int maxAttempts, Scheduler scheduler,
+          Executor executor, Callback<A> cb) {
+      this.source = source;
+      this.delayNanos = delayNanos;
+      this.maxAttempts = maxAttempts;
+      this.scheduler = scheduler;
+      this.executor = executor;
+      this.cb = cb;
+      this.tokens = new CompositeCancelable(maxAttempts * 2);
+    }
+
+    Cancelable start() {
+      next();
+      return tokens;
+    }
+
+    private void next() {
+      final int attempt = started.getAndIncrement();
+      if (attempt >= maxAttempts || !isActive.get()) return;
+      tokens.set(attempt, source.runCancelable(executor, new Callback<A>() {
+        @Override
+        public void onSuccess(A value) {
+          if (isActive.compareAndSet(true, false)) {
+            tokens.cancel();
+            cb.onSuccess(value);
+          }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          onAttemptError(attempt, e);
+        }
+      }));
+      if (attempt + 1 < maxAttempts)
+        tokens.set(maxAttempts + attempt, scheduler.schedule(delayNanos, TimeUnit.NANOSECONDS,
+          () -> executor.execute(this::next)));
+    }
+
+    private void onAttemptError(int attempt, Throwable e) {
+      if (failed.incrementAndGet() < maxAttempts) {
+        // No point in waiting for the timer, which would otherwise start
+        // yet another attempt, the next one having its own timer
+        tokens.cancel(maxAttempts + attempt);
+        next();
+      } else if (isActive.compareAndSet(true, false)) {
+        tokens.cancel();
+        cb.onError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,499 @@
+package org.alexn.async;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation for the <a href="http://www.reactive-streams.org/">Reactive Streams</a>
+ * adapters, see {@link Async#toPublisher(Executor)},
+ * {@link Async#fromPublisher(Publisher)}, {@link AsyncStream#toPublisher(Executor)}
+ * and {@link AsyncStream#fromPublisher(Publisher, int)}.
+ *
+ * Publishers start the source on subscription, holding at most one
+ * element until requested, so errors and completion get signaled
+ * without demand, whereas subscribers request a bounded number of
+ * elements, replenishing the demand as elements get consumed, so no
+ * side buffers unboundedly.
+ */
+final class ReactiveStreams {
+  private ReactiveStreams() {}
+
+  static <A> Publisher<A> toPublisher(Async<A> source, Executor executor) {
+    return subscriber -> {
+      Objects.requireNonNull(subscriber, "subscriber");
+      final AsyncSubscription<A> subscription = new AsyncSubscription<>(source, executor, subscriber);
+      subscriber.onSubscribe(subscription);
+      subscription.subscribed();
+    };
+  }
+
+  static <A> Publisher<A> toPublisher(AsyncStream<A> stream, Executor executor) {
+    final AtomicBoolean isSubscribed = new AtomicBoolean(false);
+    return subscriber -> {
+      Objects.requireNonNull(subscriber, "subscriber");
+      if (!isSubscribed.compareAndSet(false, true)) {
+        // Streams can only be consumed once
+        subscriber.onSubscribe(EmptySubscription.INSTANCE);
+        subscriber.onError(new IllegalStateException("AsyncStream publishers allow a single subscriber"));
+        return;
+      }
+      final StreamSubscription<A> subscription = new StreamSubscription<>(stream, executor, subscriber);
+      subscriber.onSubscribe(subscription);
+      subscription.subscribed();
+    };
+  }
+
+  static <A> Async<A> fromPublisher(Publisher<A> publisher) {
+    return Async.cancelable((executor, cb) -> {
+      final FirstSubscriber<A> subscriber = new FirstSubscriber<>(cb);
+      publisher.subscribe(subscriber);
+      return subscriber;
+    });
+  }
+
+  static <A> AsyncStream<A> fromPublisher(Publisher<A> publisher, int bufferSize) {
+    if (bufferSize <= 0)
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    return new PublisherStream<>(publisher, bufferSize);
+  }
+
+  private static IllegalArgumentException invalidRequest(long n) {
+    return new IllegalArgumentException("§3.9: request must be positive, but was " + n);
+  }
+
+  private enum EmptySubscription implements Subscription {
+    INSTANCE;
+
+    @Override
+    public void request(long n) {}
+
+    @Override
+    public void cancel() {}
+  }
+
+  /**
+   * Runs the source once subscribed, with the token of the execution
+   * held for cancellation, the result being held until requested.
+   *
+   * The state is a set of flags: REQUESTED and COMPLETED, with the one
+   * setting the second flag emitting the result, and DONE, once a
+   * terminal signal was sent or the subscription canceled. The source
+   * only starts after `onSubscribe` returns (§1.3). Errors and empty
+   * results don't need demand, being signaled right away.
+   */
+  private static final class AsyncSubscription<A> extends AtomicInteger implements Subscription, Callback<A> {
+    private static final int REQUESTED = 1;
+    private static final int COMPLETED = 2;
+    private static final int DONE = 4;
+    private static final Cancelable CANCELED = () -> {};
+
+    private final Async<A> source;
+    private final Executor executor;
+    private final Subscriber<? super A> subscriber;
+    private final AtomicReference<Cancelable> token = new AtomicReference<>();
+    // Published by setting COMPLETED
+    private A value;
+
+    AsyncSubscription(Async<A> source, Executor executor, Subscriber<? super A> subscriber) {
+      this.source = source;
+      this.executor = executor;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        if ((getAndSet(DONE) & DONE) == 0) {
+          cancelToken();
+          subscriber.onError(invalidRequest(n));
+        }
+        return;
+      }
+      while (true) {
+        final int current = get();
+        if ((current & (REQUESTED | DONE)) != 0) return;
+        if ((current & COMPLETED) != 0) {
+          if (compareAndSet(current, DONE)) emit();
+        } else if (compareAndSet(current, REQUESTED)) {
+          return;
+        }
+      }
+    }
+
+    void subscribed() {
+      if ((get() & DONE) != 0) return;
+      final Cancelable ref = source.runCancelable(executor, this);
+      if (!token.compareAndSet(null, ref)) ref.cancel();
+    }
+
+    @Override
+    public void cancel() {
+      if ((getAndSet(DONE) & DONE) == 0) cancelToken();
+      value = null;
+    }
+
+    private void cancelToken() {
+      final Cancelable ref = token.getAndSet(CANCELED);
+      if (ref != null) ref.cancel();
+    }
+
+    private void emit() {
+      final A a = value;
+      value = null;
+      subscriber.onNext(a);
+      subscriber.onComplete();
+    }
+
+    @Override
+    public void onSuccess(A value) {
+      if (value == null) {
+        // Null values can't be signaled, the publisher being empty
+        if ((getAndSet(DONE) & DONE) == 0) subscriber.onComplete();
+        return;
+      }
+      this.value = value;
+      while (true) {
+        final int current = get();
+        if ((current & DONE) != 0) return;
+        if ((current & REQUESTED) != 0) {
+          if (compareAndSet(current, DONE)) emit();
+        } else if (compareAndSet(current, COMPLETED)) {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      if ((getAndSet(DONE) & DONE) == 0) subscriber.onError(e);
+    }
+  }
+
+  /**
+   * Pulls elements from the stream, one at a time, holding the last
+   * pulled element until there's demand for it.
+   *
+   * Consecutive pulls are `flatMap` steps of the same run-loop, which
+   * stops once an element is held without demand, to be started again
+   * by a request. The run-loop is active while `wip` is positive, each
+   * request incrementing it, such that requests made while it's active
+   * get noticed before it stops, so pulls, and thus signals, are
+   * sequential. The first run-loop starts once subscribed, with `wip`
+   * at 1, after `onSubscribe` returns (§1.3). Pulling one element ahead
+   * means errors and completion get signaled without demand.
+   *
+   * The token of the last started run-loop is held for cancellation,
+   * numbered such that a run-loop that already stopped can't replace
+   * the token of the one that followed it.
+   */
+  private static final class StreamSubscription<A> implements Subscription, Callback<Void> {
+    private final AsyncStream<A> stream;
+    private final Executor executor;
+    private final Subscriber<? super A> subscriber;
+    private final AtomicLong demand = new AtomicLong(0);
+    private final AtomicInteger wip = new AtomicInteger(1);
+    private volatile boolean isCanceled = false;
+    private volatile Throwable invalidRequest = null;
+    private final AtomicReference<Run> token = new AtomicReference<>(new Run(0, Cancelable.EMPTY));
+    // Only accessed by the run-loop
+    private A pending = null;
+    // Only accessed by whoever starts the run-loop, the starts being sequential
+    private long runs = 0;
+
+    StreamSubscription(AsyncStream<A> stream, Executor executor, Subscriber<? super A> subscriber) {
+      this.stream = stream;
+      this.executor = executor;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        // Signaled by the pulling side, for keeping signals sequential
+        invalidRequest = invalidRequest(n);
+        n = 1;
+      }
+      long current, update;
+      do {
+        current = demand.get();
+        if (current == Long.MAX_VALUE) break;
+        update = current + n < 0 ? Long.MAX_VALUE : current + n;
+      } while (!demand.compareAndSet(current, update));
+      if (wip.getAndIncrement() == 0) start();
+    }
+
+    @Override
+    public void cancel() {
+      isCanceled = true;
+      final Run run = token.getAndSet(Run.CANCELED);
+      if (run != Run.CANCELED) run.token.cancel();
+    }
+
+    void subscribed() {
+      start();
+    }
+
+    private void start() {
+      final Run run = new Run(++runs, pullLoop().runCancelable(executor, this));
+      while (true) {
+        final Run current = token.get();
+        if (current == Run.CANCELED) {
+          run.token.cancel();
+          return;
+        }
+        // Stale, a later run-loop already got started
+        if (current.id > run.id) return;
+        if (token.compareAndSet(current, run)) return;
+      }
+    }
+
+    private Async<Void> pullLoop() {
+      return Async.defer(() -> {
+        if (isCanceled) return Async.pure(null);
+        final Throwable e = invalidRequest;
+        if (e != null) {
+          isCanceled = true;
+          subscriber.onError(e);
+          return Async.pure(null);
+        }
+        final A value = pending;
+        if (value == null) return stream.next().flatMap(this::pulled);
+        if (demand.get() == 0) {
+          // Stopping, unless requests were made in the meantime
+          return wip.decrementAndGet() == 0 ? Async.pure(null) : pullLoop();
+        }
+        pending = null;
+        subscriber.onNext(value);
+        // Unbounded demand never decrements
+        if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+        return pullLoop();
+      });
+    }
+
+    private Async<Void> pulled(Optional<A> value) {
+      if (isCanceled) return Async.pure(null);
+      if (!value.isPresent()) {
+        isCanceled = true;
+        subscriber.onComplete();
+        return Async.pure(null);
+      }
+      pending = value.get();
+      return pullLoop();
+    }
+
+    @Override
+    public void onSuccess(Void value) {}
+
+    @Override
+    public void onError(Throwable e) {
+      if (isCanceled) return;
+      isCanceled = true;
+      subscriber.onError(e);
+    }
+
+    private static final class Run {
+      static final Run CANCELED = new Run(Long.MAX_VALUE, Cancelable.EMPTY);
+
+      final long id;
+      final Cancelable token;
+
+      Run(long id, Cancelable token) {
+        this.id = id;
+        this.token = token;
+      }
+    }
+  }
+
+  /** Requests a single element, canceling the subscription once received. */
+  private static final class FirstSubscriber<A> implements Subscriber<A>, Cancelable {
+    private final Callback<A> cb;
+    private final AtomicReference<Subscription> subscription = new AtomicReference<>();
+    private final AtomicBoolean isDone = new AtomicBoolean(false);
+
+    FirstSubscriber(Callback<A> cb) {
+      this.cb = cb;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      Objects.requireNonNull(s, "subscription");
+      if (!subscription.compareAndSet(null, s)) {
+        // §2.5: already subscribed, or canceled
+        s.cancel();
+        return;
+      }
+      s.request(1);
+    }
+
+    @Override
+    public void onNext(A value) {
+      Objects.requireNonNull(value, "value");
+      if (isDone.compareAndSet(false, true)) {
+        subscription.get().cancel();
+        cb.onSuccess(value);
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      Objects.requireNonNull(e, "error");
+      if (isDone.compareAndSet(false, true)) cb.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+      if (isDone.compareAndSet(false, true))
+        cb.onError(new NoSuchElementException("Publisher completed without elements"));
+    }
+
+    @Override
+    public void cancel() {
+      isDone.set(true);
+      final Subscription s = subscription.getAndSet(EmptySubscription.INSTANCE);
+      if (s != null) s.cancel();
+    }
+  }
+
+  /**
+   * Subscribes on the first pull, requesting `bufferSize` elements,
+   * then replenishing the demand in batches, as elements get consumed.
+   * The state is guarded by the instance's monitor, callbacks being
+   * signaled outside of it.
+   */
+  static final class PublisherStream<A> implements AsyncStream<A>, Subscriber<A> {
+    private final Publisher<A> publisher;
+    private final int bufferSize;
+    private final int replenishAt;
+
+    private final ArrayDeque<A> buffer = new ArrayDeque<>();
+    private boolean isSubscribed = false;
+    private Subscription subscription = null;
+    private boolean isDone = false;
+    private Throwable error = null;
+    private Callback<Optional<A>> waiting = null;
+    private int consumed = 0;
+
+    PublisherStream(Publisher<A> publisher, int bufferSize) {
+      this.publisher = publisher;
+      this.bufferSize = bufferSize;
+      this.replenishAt = Math.max(1, bufferSize / 2);
+    }
+
+    @Override
+    public Async<Optional<A>> next() {
+      return Async.defer(() -> {
+        final A value;
+        synchronized (this) {
+          value = buffer.poll();
+        }
+        if (value == null) return pull();
+        // Fast path, no async boundary needed for buffered elements
+        consumed();
+        return Async.pure(Optional.of(value));
+      });
+    }
+
+    private Async<Optional<A>> pull() {
+      return Async.create((executor, cb) -> {
+        final boolean subscribe;
+        final A value;
+        final boolean isCompleted;
+        final Throwable e;
+        synchronized (this) {
+          subscribe = !isSubscribed;
+          isSubscribed = true;
+          value = buffer.poll();
+          e = value == null ? error : null;
+          isCompleted = value == null && e == null && isDone;
+          if (value == null && e == null && !isCompleted) waiting = cb;
+        }
+        if (subscribe) publisher.subscribe(this);
+        if (value != null) {
+          consumed();
+          cb.onSuccess(Optional.of(value));
+        } else if (e != null) {
+          cb.onError(e);
+        } else if (isCompleted) {
+          cb.onSuccess(Optional.empty());
+        }
+      });
+    }
+
+    /** Replenishes the demand, once enough elements were consumed. */
+    private void consumed() {
+      final Subscription s;
+      final int n;
+      synchronized (this) {
+        if (++consumed < replenishAt || isDone) return;
+        n = consumed;
+        consumed = 0;
+        s = subscription;
+      }
+      s.request(n);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      Objects.requireNonNull(s, "subscription");
+      synchronized (this) {
+        if (subscription != null) {
+          // §2.5: already subscribed
+          s.cancel();
+          return;
+        }
+        subscription = s;
+      }
+      s.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(A value) {
+      Objects.requireNonNull(value, "value");
+      final Callback<Optional<A>> cb;
+      synchronized (this) {
+        cb = waiting;
+        waiting = null;
+        if (cb == null) buffer.add(value);
+      }
+      if (cb != null) {
+        consumed();
+        cb.onSuccess(Optional.of(value));
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      Objects.requireNonNull(e, "error");
+      final Callback<Optional<A>> cb;
+      synchronized (this) {
+        isDone = true;
+        error = e;
+        cb = waiting;
+        waiting = null;
+      }
+      if (cb != null) cb.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+      final Callback<Optional<A>> cb;
+      synchronized (this) {
+        isDone = true;
+        cb = waiting;
+        waiting = null;
+      }
+      if (cb != null) cb.onSuccess(Optional.empty());
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation for {@link Async#retry(RetryPolicy, Scheduler)}.
+ *
+ * Each attempt executes the source from scratch, the delays between
+ * attempts going through the {@link Scheduler}. The current attempt,
+ * or the pending timer, is the one referenced for cancellation.
+ */
+final class Retry<A> extends AtomicReference<Retry.Slot> implements Callback<A>, Cancelable {
+  private static final Slot CANCELED = new Slot(Long.MAX_VALUE, () -> {});
+
+  private final Async<A> source;
+  private final RetryPolicy policy;
+  private final Scheduler scheduler;
+  private final Executor executor;
+  private final Callback<A> cb;
+  // Only accessed from the callback, with attempts being sequential
+  private int attempt = 1;
+
+  private Retry(Async<A> source, RetryPolicy policy, Scheduler scheduler,
+                Executor executor, Callback<A> cb) {
+    super(new Slot(0, Cancelable.EMPTY));
+    this.source = source;
+    this.policy = policy;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.cb = cb;
+  }
+
+  static <A> Async<A> apply(Async<A> source, RetryPolicy policy, Scheduler scheduler) {
+    return Async.cancelable((executor, cb) -> {
+      policy.budget().deposit();
+      final Retry<A> retry = new Retry<>(source, policy, scheduler, executor, cb);
+      retry.run(1);
+      return retry;
+    });
+  }
+
+  private void run(int n) {
+    if (get() == CANCELED) return;
+    update(2L * n, source.runCancelable(executor, this));
+  }
+
+  @Override
+  public void onSuccess(A value) {
+    if (get() != CANCELED) cb.onSuccess(value);
+  }
+
+  @Override
+  public void onError(Throwable e) {
+    if (get() == CANCELED) return;
+    if (attempt >= policy.maxAttempts()
+      || !policy.isRetriable(e)
+      || !policy.budget().tryWithdraw()) {
+      cb.onError(e);
+      return;
+    }
+    final int n = attempt;
+    final long delay = policy.delayNanos(attempt++);
+    // The timer comes after attempt `n`, before attempt `n + 1`
+    update(2L * n + 1, scheduler.schedule(delay, TimeUnit.NANOSECONDS,
+      () -> executor.execute(() -> run(n + 1))));
+  }
+
+  /**
+   * Replaces the current token, unless canceled, or unless a newer one
+   * was already set.
+   *
+   * The token of an attempt is set after `runCancelable` returns, which
+   * can be after the attempt already failed and its timer, or even the
+   * next attempt, got set. Tokens are ordered by their sequence number,
+   * `2n` for attempt `n` and `2n + 1` for the timer that follows it, such
+   * that a stale token never replaces a newer one.
+   */
+  private void update(long seq, Cancelable token) {
+    final Slot slot = new Slot(seq, token);
+    while (true) {
+      final Slot current = get();
+      if (current == CANCELED) {
+        token.cancel();
+        return;
+      }
+      // Stale, its attempt or timer being already done
+      if (current.seq > seq) return;
+      if (compareAndSet(current, slot)) return;
+    }
+  }
+
+  @Override
+  public void cancel() {
+    final Slot slot = getAndSet(CANCELED);
+    if (slot != CANCELED) slot.token.cancel();
+  }
+
+  static final class Slot {
+    final long seq;
+    final Cancelable token;
+
+    Slot(long seq, Cancelable token) {
+      this.seq = seq;
+      this.token = token;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.alexn.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a ratio of the executions, such that retries can't
+ * amplify the load on a failing dependency, see {@link RetryPolicy}.
+ *
+ * Each execution deposits `ratio` tokens and each retry withdraws one,
+ * a retry being allowed only when a whole token is available. The
+ * balance starts at, and is capped to, `reserve` tokens, so bursts
+ * of retries are still possible after a quiet period. The cap is at
+ * least one token, such that with no reserve the deposits can still
+ * add up to a retry.
+ *
+ * Meant to be shared by all the tasks calling the same dependency.
+ */
+public final class RetryBudget {
+  /** A budget that always allows retries. */
+  public static final RetryBudget UNLIMITED = new RetryBudget(0, 0);
+
+  // Fixed point, in thousandths of a token
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long maxBalance;
+  private final AtomicLong balance;
+
+  /**
+   * @param ratio is the number of retries allowed per execution, e.g.
+   *              `0.1` for allowing retries for 10% of the executions
+   * @param reserve is the initial and maximum number of retries that
+   *                can be made regardless of the ratio
+   */
+  public RetryBudget(double ratio, int reserve) {
+    if (ratio < 0)
+      throw new IllegalArgumentException("ratio must not be negative: " + ratio);
+    if (reserve < 0)
+      throw new IllegalArgumentException("reserve must not be negative: " + reserve);
+    this.deposit = (long) (ratio * SCALE);
+    this.maxBalance = Math.max(reserve, 1) * SCALE;
+    this.balance = new AtomicLong(reserve * SCALE);
+  }
+
+  /** Called for each execution. */
+  void deposit() {
+    if (this == UNLIMITED) return;
+    long current;
+    do {
+      current = balance.get();
+      if (current >= maxBalance) return;
+    } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+  }
+
+  /** Called before each retry, returns `false` if the budget is exhausted. */
+  boolean tryWithdraw() {
+    if (this == UNLIMITED) return true;
+    long current;
+    do {
+      current = balance.get();
+      if (current < SCALE) return false;
+    } while (!balance.compareAndSet(current, current - SCALE));
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return this == UNLIMITED
+      ? "RetryBudget(unlimited)"
+      : "RetryBudget(balance=" + (double) balance.get() / SCALE + ")";
+  }
+}
@@ -0,0 +1,113 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Describes how {@link Async#retry(RetryPolicy)} retries failed tasks,
+ * with exponential backoff and full jitter.
+ *
+ * <pre>
+ * {@code
+ * RetryPolicy policy = RetryPolicy
+ *   .exponentialBackoff(Duration.ofMillis(10), Duration.ofSeconds(1))
+ *   .withMaxAttempts(5)
+ *   .withRetryBudget(new RetryBudget(0.1, 10))
+ *   .retryOn(e -> e instanceof IOException)
+ *
+ * Async<Response> fa = Async.fromFuture(() -> client.call(request)).retry(policy)
+ * }
+ * </pre>
+ *
+ * The delay before retry `n` (starting from `1`) is a random value in
+ * `[0, min(maxDelay, baseDelay * 2^(n-1))]`, see
+ * <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">Exponential
+ * Backoff And Jitter</a>.
+ *
+ * Instances are immutable, the `with` methods returning updated copies.
+ */
+public final class RetryPolicy {
+  private final long baseDelayNanos;
+  private final long maxDelayNanos;
+  private final int maxAttempts;
+  private final RetryBudget budget;
+  private final Predicate<Throwable> isRetriable;
+
+  private RetryPolicy(long baseDelayNanos, long maxDelayNanos, int maxAttempts,
+                      RetryBudget budget, Predicate<Throwable> isRetriable) {
+    this.baseDelayNanos = baseDelayNanos;
+    this.maxDelayNanos = maxDelayNanos;
+    this.maxAttempts = maxAttempts;
+    this.budget = budget;
+    this.isRetriable = isRetriable;
+  }
+
+  /**
+   * Builds a policy with 3 attempts, retrying all `Exception` types,
+   * without a retry budget.
+   *
+   * @param baseDelay is the maximum delay before the first retry
+   * @param maxDelay caps the exponentially growing delay
+   */
+  public static RetryPolicy exponentialBackoff(Duration baseDelay, Duration maxDelay) {
+    if (baseDelay.isNegative())
+      throw new IllegalArgumentException("baseDelay must not be negative: " + baseDelay);
+    if (maxDelay.compareTo(baseDelay) < 0)
+      throw new IllegalArgumentException("maxDelay must not be less than baseDelay: " + maxDelay);
+    return new RetryPolicy(baseDelay.toNanos(), maxDelay.toNanos(), 3,
+      RetryBudget.UNLIMITED, e -> e instanceof Exception);
+  }
+
+  /** Returns a copy with the given maximum number of attempts, including the first one. */
+  public RetryPolicy withMaxAttempts(int maxAttempts) {
+    if (maxAttempts <= 0)
+      throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+    return new RetryPolicy(baseDelayNanos, maxDelayNanos, maxAttempts, budget, isRetriable);
+  }
+
+  /** Returns a copy that only retries while the given budget allows it. */
+  public RetryPolicy withRetryBudget(RetryBudget budget) {
+    return new RetryPolicy(baseDelayNanos, maxDelayNanos, maxAttempts, budget, isRetriable);
+  }
+
+  /** Returns a copy that only retries the errors for which `isRetriable` returns `true`. */
+  public RetryPolicy retryOn(Predicate<Throwable> isRetriable) {
+    return new RetryPolicy(baseDelayNanos, maxDelayNanos, maxAttempts, budget, isRetriable);
+  }
+
+  int maxAttempts() {
+    return maxAttempts;
+  }
+
+  RetryBudget budget() {
+    return budget;
+  }
+
+  boolean isRetriable(Throwable e) {
+    return isRetriable.test(e);
+  }
+
+  /** Returns the delay before retry number `retry`, starting from `1`. */
+  long delayNanos(int retry) {
+    return delayNanos(retry, ThreadLocalRandom.current().nextDouble());
+  }
+
+  /** Returns the delay before retry number `retry`, for the given `random` in `[0, 1)`. */
+  long delayNanos(int retry, double random) {
+    // Avoiding overflow, as the cap is reached long before
+    final int exponent = Math.min(retry - 1, 62);
+    final long ceiling = baseDelayNanos > (maxDelayNanos >> exponent)
+      ? maxDelayNanos
+      : Math.min(maxDelayNanos, baseDelayNanos << exponent);
+    return (long) (random * ceiling);
+  }
+
+  @Override
+  public String toString() {
+    return "RetryPolicy(baseDelay=" + Duration.ofNanos(baseDelayNanos) +
+      ", maxDelay=" + Duration.ofNanos(maxDelayNanos) +
+      ", maxAttempts=" + maxAttempts +
+      ", budget=" + budget + ")";
+  }
+}
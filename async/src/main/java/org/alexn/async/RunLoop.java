@@ -0,0 +1,348 @@
+package org.alexn.async;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * The interpreter of {@link AsyncNode} instructions.
+ *
+ * Evaluation happens in a `while` loop that keeps `map` and `flatMap`
+ * continuations on an explicit stack, so synchronous steps are executed
+ * on the current thread, without consuming call-stack space and without
+ * going through the `Executor`.
+ *
+ * The `Executor` is only used for:
+ *
+ *   1. starting the loop, as `run` is never executing anything on
+ *      the caller's thread
+ *   2. the asynchronous boundaries described by {@link Async#create(BiConsumer)},
+ *      but not by {@link Async#fromFuture(Supplier)}, as futures are
+ *      already started, already completed ones being evaluated inline
+ *   3. fairness, the loop being re-submitted every
+ *      {@link ExecutionModel#batchSize()} steps
+ *
+ * One instance is created per `run` and it's not thread-safe, however
+ * at any point in time it is owned by a single thread, being handed
+ * over on async boundaries by means of {@link Resume}.
+ *
+ * The instance is also the {@link Cancelable} returned by
+ * {@link Async#runCancelable(Executor, Callback)}: cancellation stops
+ * the loop before its next step and cancels the active async boundary.
+ */
+@SuppressWarnings("unchecked")
+final class RunLoop implements Cancelable {
+  /**
+   * Maximum number of run-loops allowed to be nested on the same
+   * call-stack, when resuming from async boundaries; beyond it we
+   * resume on the `Executor`, in order to preserve stack-safety.
+   */
+  private static final int MAX_NESTING = 32;
+
+  private static final ThreadLocal<int[]> nesting =
+    ThreadLocal.withInitial(() -> new int[1]);
+
+  private final Executor executor;
+  private final Callback<Object> cb;
+  private final int batchSize;
+  private final ArrayDeque<AsyncNode<Object>> stack = new ArrayDeque<>();
+
+  private volatile boolean canceled = false;
+  private volatile Resume active = null;
+
+  private RunLoop(Executor executor, Callback<Object> cb) {
+    this.executor = executor;
+    this.cb = cb;
+    this.batchSize = ExecutionModel.of(executor).batchSize();
+  }
+
+  static <A> Cancelable start(Async<A> source, Executor executor, Callback<A> cb) {
+    final RunLoop loop = new RunLoop(executor,
+      (Callback<Object>) (Instrumentation.enabled ? Instrumentation.timed(cb) : cb));
+    // Forcing async boundary (via executor)
+    loop.submit(() -> loop.loop((Async<Object>) source, null, null));
+    return loop;
+  }
+
+  @Override
+  public void cancel() {
+    canceled = true;
+    final Resume resume = active;
+    if (resume != null) resume.cancel();
+  }
+
+  private void loop(Async<Object> current, Object value, Throwable error) {
+    final int[] depth = nesting.get();
+    depth[0]++;
+    try {
+      if (canceled)
+        return;
+      else if (error != null)
+        cb.onError(error);
+      else
+        runLoop(current, value);
+    } finally {
+      depth[0]--;
+    }
+  }
+
+  /**
+   * Evaluates `current`, or if `null`, continues with `value`
+   * as the result of the previous step.
+   */
+  private void runLoop(Async<Object> current, Object value) {
+    int steps = 0;
+    while (true) {
+      if (current == null) {
+        final AsyncNode<Object> frame = stack.poll();
+        if (frame == null) {
+          cb.onSuccess(value);
+          return;
+        }
+        try {
+          if (frame.tag == AsyncNode.MAP) {
+            value = ((AsyncNode.Map<Object, Object>) frame).f.apply(value);
+          } else {
+            if (Instrumentation.enabled) Instrumentation.metrics.flatMap();
+            current = Objects.requireNonNull(
+              ((AsyncNode.FlatMap<Object, Object>) frame).f.apply(value),
+              "flatMap function returned null");
+          }
+        } catch (Exception e) {
+          cb.onError(e);
+          return;
+        }
+        if (++steps == batchSize) {
+          // Cede control, continuing on the executor
+          final Async<Object> next = current;
+          final Object result = value;
+          submit(() -> loop(next, result, null));
+          return;
+        }
+        if (canceled) return;
+        continue;
+      }
+
+      if (!(current instanceof AsyncNode)) {
+        // Foreign implementation, treated as an async boundary
+        final Resume resume = new Resume(this, null);
+        if (activate(resume)) return;
+        try {
+          resume.setToken(current.runCancelable(executor, resume));
+        } catch (Exception e) {
+          resume.onError(e);
+        }
+        if (resume.detach() || canceled) return;
+        if (resume.error != null) {
+          cb.onError(resume.error);
+          return;
+        }
+        value = resume.value;
+        current = null;
+        continue;
+      }
+
+      final AsyncNode<Object> node = (AsyncNode<Object>) current;
+      switch (node.tag) {
+        case AsyncNode.PURE:
+          value = ((AsyncNode.Pure<Object>) node).value;
+          current = null;
+          break;
+
+        case AsyncNode.DELAY:
+          if (Instrumentation.enabled) Instrumentation.metrics.eval();
+          try {
+            value = ((AsyncNode.Delay<Object>) node).thunk.get();
+          } catch (Exception e) {
+            cb.onError(e);
+            return;
+          }
+          current = null;
+          break;
+
+        case AsyncNode.MAP:
+          stack.push(node);
+          current = ((AsyncNode.Map<Object, Object>) node).source;
+          break;
+
+        case AsyncNode.FLATMAP:
+          stack.push(node);
+          current = ((AsyncNode.FlatMap<Object, Object>) node).source;
+          break;
+
+        case AsyncNode.ERROR:
+          cb.onError(((AsyncNode.Error<Object>) node).error);
+          return;
+
+        case AsyncNode.FUTURE: {
+          final CompletableFuture<Object> future;
+          try {
+            future = Objects.requireNonNull(((AsyncNode.FromFuture<Object>) node).future.get(), "future");
+          } catch (Exception e) {
+            cb.onError(e);
+            return;
+          }
+          if (future.isDone() && !future.isCompletedExceptionally()) {
+            // Fast path, no async boundary needed once completed
+            value = future.join();
+            current = null;
+            break;
+          }
+          if (Instrumentation.enabled) Instrumentation.metrics.asyncBoundary();
+          final Resume resume = new Resume(this, null);
+          if (activate(resume)) {
+            // Canceled after the future was started
+            future.cancel(false);
+            return;
+          }
+          // Already started, no need for the executor; if completed,
+          // the result gets picked up below, before detaching
+          future.whenComplete((v, e) -> {
+            // Dependent stages wrap the errors of their upstream
+            if (e instanceof CompletionException && e.getCause() != null) resume.onError(e.getCause());
+            else if (e != null) resume.onError(e);
+            else resume.onSuccess(v);
+          });
+          resume.setToken(() -> future.cancel(false));
+          if (resume.detach() || canceled) return;
+          if (resume.error != null) {
+            cb.onError(resume.error);
+            return;
+          }
+          value = resume.value;
+          current = null;
+          break;
+        }
+
+        default: {
+          if (Instrumentation.enabled) Instrumentation.metrics.asyncBoundary();
+          final Resume resume = new Resume(this, ((AsyncNode.Create<Object>) node).start);
+          if (activate(resume)) return;
+          // Forcing async boundary (via executor)
+          submit(resume);
+          if (resume.detach() || canceled) return;
+          if (resume.error != null) {
+            cb.onError(resume.error);
+            return;
+          }
+          value = resume.value;
+          current = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Registers the given async boundary as the one to cancel.
+   *
+   * @return `true` if the loop was canceled, so it needs to stop
+   */
+  private boolean activate(Resume resume) {
+    active = resume;
+    return canceled;
+  }
+
+  /**
+   * Continues the loop after an async boundary completed, on the
+   * current thread, unless too many loops are already nested on
+   * the current call-stack.
+   */
+  private void resume(Object value, Throwable error) {
+    if (nesting.get()[0] < MAX_NESTING)
+      loop(null, value, error);
+    else
+      submit(() -> loop(null, value, error));
+  }
+
+  private void submit(Runnable task) {
+    executor.execute(Instrumentation.enabled ? Instrumentation.timed(task) : task);
+  }
+
+  /**
+   * Callback used for async boundaries.
+   *
+   * If signaled before the loop gets to call {@link #detach()},
+   * the result is picked up by the loop itself, otherwise the signal
+   * resumes the loop on the current thread. This avoids growing the
+   * call-stack when the result is available synchronously.
+   *
+   * Being the hot path of async boundaries, a single object plays
+   * all roles: the idempotent callback (see {@link SafeCallback}),
+   * the task that calls `start` on the `Executor` and the holder of
+   * the started process's token, for cancellation.
+   */
+  private static final class Resume extends AtomicInteger implements Callback<Object>, Cancelable, Runnable {
+    private static final int DETACHED = 1;
+    private static final int COMPLETED = 2;
+    private static final Cancelable CANCELED = () -> {};
+
+    private static final AtomicIntegerFieldUpdater<Resume> CALLED =
+      AtomicIntegerFieldUpdater.newUpdater(Resume.class, "called");
+    private static final AtomicReferenceFieldUpdater<Resume, Cancelable> TOKEN =
+      AtomicReferenceFieldUpdater.newUpdater(Resume.class, Cancelable.class, "token");
+
+    private final RunLoop loop;
+    private final BiFunction<Executor, Callback<Object>, Cancelable> start;
+    private volatile int called = 0;
+    private volatile Cancelable token = null;
+    private Object value;
+    private Throwable error;
+
+    Resume(RunLoop loop, BiFunction<Executor, Callback<Object>, Cancelable> start) {
+      this.loop = loop;
+      this.start = start;
+    }
+
+    @Override
+    public void run() {
+      try {
+        setToken(start.apply(loop.executor, this));
+      } catch (Exception e) {
+        onError(e);
+      }
+    }
+
+    @Override
+    public void onSuccess(Object value) {
+      if (!CALLED.compareAndSet(this, 0, 1)) return;
+      this.value = value;
+      if (getAndSet(COMPLETED) == DETACHED) loop.resume(value, null);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      if (!CALLED.compareAndSet(this, 0, 1)) {
+        e.printStackTrace();
+        return;
+      }
+      this.error = e;
+      if (getAndSet(COMPLETED) == DETACHED) loop.resume(null, e);
+    }
+
+    /**
+     * @return `true` if the loop needs to stop, the result being
+     *         signaled later, or `false` if the result is available
+     */
+    boolean detach() {
+      return getAndSet(DETACHED) != COMPLETED;
+    }
+
+    void setToken(Cancelable ref) {
+      if (!TOKEN.compareAndSet(this, null, ref)) ref.cancel();
+    }
+
+    @Override
+    public void cancel() {
+      final Cancelable ref = TOKEN.getAndSet(this, CANCELED);
+      if (ref != null && ref != CANCELED) ref.cancel();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.alexn.async;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Implementation for {@link Callback#safe(Callback)}.
+ *
+ * The "was called" flag is a `volatile` field updated via an
+ * `AtomicIntegerFieldUpdater`, instead of a separate `AtomicBoolean`,
+ * so wrapping a callback is a single allocation.
+ */
+final class SafeCallback<A> implements Callback<A> {
+  private static final AtomicIntegerFieldUpdater<SafeCallback> CALLED =
+    AtomicIntegerFieldUpdater.newUpdater(SafeCallback.class, "called");
+
+  private final Callback<A> underlying;
+  private volatile int called = 0;
+
+  SafeCallback(Callback<A> underlying) {
+    this.underlying = underlying;
+  }
+
+  @Override
+  public void onSuccess(A value) {
+    if (CALLED.compareAndSet(this, 0, 1))
+      underlying.onSuccess(value);
+  }
+
+  @Override
+  public void onError(Throwable e) {
+    if (CALLED.compareAndSet(this, 0, 1))
+      underlying.onError(e);
+    else
+      e.printStackTrace();
+  }
+}
@@ -0,0 +1,29 @@
+package org.alexn.async;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules tasks for execution after a delay, being the notion of
+ * time that `Async` operations like {@link Async#sleep(Duration)} or
+ * {@link Async#timeout(Duration)} are based on.
+ *
+ * Tasks may be executed on the scheduler's own thread, so they should
+ * be short, only shifting the actual work to an `Executor`.
+ */
+public interface Scheduler {
+  /**
+   * Schedules `task` for execution after the given `delay`.
+   *
+   * @return a token that can be used for canceling the task
+   */
+  Cancelable schedule(long delay, TimeUnit unit, Runnable task);
+
+  /**
+   * The default scheduler, a {@link HashedWheelTimer} with a 10 ms
+   * precision, running on a daemon thread started on first use.
+   */
+  static Scheduler global() {
+    return HashedWheelTimer.global();
+  }
+}
@@ -0,0 +1,59 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The default executors, separating CPU-bound work from blocking I/O.
+ *
+ * <pre>
+ * {@code
+ * Async<Report> report = Async.blocking(() -> db.query(sql))
+ *   .map(rows -> Report.build(rows))
+ *
+ * report.run(Schedulers.compute(), cb)
+ * }
+ * </pre>
+ *
+ * Both pools use daemon threads, started on first use.
+ */
+public final class Schedulers {
+  private Schedulers() {}
+
+  /**
+   * A work-stealing pool with one thread per available processor,
+   * meant for CPU-bound work and for the run-loop itself.
+   */
+  public static Executor compute() {
+    return Compute.INSTANCE;
+  }
+
+  /**
+   * An elastic pool for blocking I/O, see {@link Async#blocking(java.util.function.Supplier)},
+   * starting a virtual thread per task on JDK 21+.
+   */
+  public static Executor blocking() {
+    return BlockingExecutor.INSTANCE;
+  }
+
+  /** The default {@link Scheduler}, for time-based operations. */
+  public static Scheduler timer() {
+    return Scheduler.global();
+  }
+
+  /** Lazy initialization holder. */
+  private static final class Compute {
+    static final Executor INSTANCE = new ForkJoinPool(
+      Runtime.getRuntime().availableProcessors(),
+      pool -> {
+        final ForkJoinWorkerThread th = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        th.setName("async-compute-" + th.getPoolIndex());
+        th.setDaemon(true);
+        return th;
+      },
+      null,
+      // FIFO scheduling, better suited for event-style tasks that are never joined
+      true);
+  }
+}
@@ -0,0 +1,41 @@
+package org.alexn.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Implementation for {@link Async#sequence(List)}.
+ *
+ * A state machine with a preallocated accumulator and an index
+ * cursor, being itself the `flatMap` continuation for every step,
+ * such that tasks completing synchronously are executed inline
+ * by the run-loop, in constant stack space.
+ */
+@SuppressWarnings("unchecked")
+final class Sequence<A> implements Function<A, Async<List<A>>> {
+  private final Object[] tasks;
+  private final ArrayList<A> acc;
+  private int index = 0;
+
+  private Sequence(Object[] tasks) {
+    this.tasks = tasks;
+    this.acc = new ArrayList<>(tasks.length);
+  }
+
+  static <A> Async<List<A>> apply(List<Async<A>> list) {
+    // State is created on each execution
+    return Async.defer(() -> new Sequence<A>(list.toArray()).next());
+  }
+
+  @Override
+  public Async<List<A>> apply(A value) {
+    acc.add(value);
+    return next();
+  }
+
+  private Async<List<A>> next() {
+    if (index == tasks.length) return Async.pure(acc);
+    return new AsyncNode.FlatMap<>((Async<A>) tasks[index++], this);
+  }
+}
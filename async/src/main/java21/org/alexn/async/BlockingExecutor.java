@@ -0,0 +1,15 @@
+package org.alexn.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The `Executor` used by {@link Async#blocking(java.util.function.Supplier)},
+ * the JDK 21+ version, starting a virtual thread per task.
+ */
+final class BlockingExecutor {
+  private BlockingExecutor() {}
+
+  static final Executor INSTANCE = Executors.newThreadPerTaskExecutor(
+    Thread.ofVirtual().name("async-blocking-", 1).factory());
+}
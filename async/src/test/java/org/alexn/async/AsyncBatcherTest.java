@@ -0,0 +1,112 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncBatcherTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  private static Async<Map<Integer, String>> fetch(List<List<Integer>> calls, List<Integer> keys) {
+    return Async.eval(() -> {
+      synchronized (calls) { calls.add(keys); }
+      final Map<Integer, String> result = new HashMap<>();
+      for (Integer k : keys) if (k >= 0) result.put(k, "v" + k);
+      return result;
+    });
+  }
+
+  private static List<Async<String>> loads(AsyncBatcher<Integer, String> batcher, int... keys) {
+    final List<Async<String>> list = new ArrayList<>();
+    for (int k : keys) list.add(batcher.load(k));
+    return list;
+  }
+
+  @Test public void batchesKeysWithinOneTick() {
+    final ExecutorService single = Executors.newSingleThreadExecutor();
+    try {
+      final List<List<Integer>> calls = new ArrayList<>();
+      final AsyncBatcher<Integer, String> batcher = new AsyncBatcher<>(keys -> fetch(calls, keys), 100);
+
+      final List<String> result = await(Async.parallel(loads(batcher, 1, 2, 3, 2)), single);
+      assertEquals(result, Arrays.asList("v1", "v2", "v3", "v2"));
+      assertEquals(calls, Arrays.asList(Arrays.asList(1, 2, 3)));
+      assertEquals(batcher.batchCount(), 1L);
+      assertEquals(batcher.keyCount(), 3L);
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  @Test public void maxBatchSize() {
+    final List<List<Integer>> calls = new ArrayList<>();
+    final AsyncBatcher<Integer, String> batcher =
+      new AsyncBatcher<>(keys -> fetch(calls, keys), 4, Duration.ofMillis(100));
+
+    final List<String> result = await(Async.parallel(loads(batcher, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9)), ec);
+    assertEquals(result.size(), 10);
+    assertEquals(result.get(9), "v9");
+    assertEquals(batcher.batchCount(), 3L);
+    assertEquals(batcher.keyCount(), 10L);
+    assertEquals(batcher.fillRatio(), 10.0 / 12, 0.0001);
+    for (List<Integer> keys : calls) assertTrue(keys.size() <= 4);
+  }
+
+  @Test public void missingKeyIsSignaledAsError() {
+    final List<List<Integer>> calls = new ArrayList<>();
+    final AsyncBatcher<Integer, String> batcher =
+      new AsyncBatcher<>(keys -> fetch(calls, keys), 10, Duration.ofMillis(10));
+
+    try {
+      await(batcher.load(-1), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof NoSuchElementException);
+    }
+  }
+
+  @Test public void batchErrorIsSignaledToAllCallers() throws Exception {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final AsyncBatcher<Integer, String> batcher =
+      new AsyncBatcher<>(keys -> Async.raiseError(dummy), 10, Duration.ofMillis(10));
+
+    final List<CompletableFuture<String>> futures = new ArrayList<>();
+    for (Async<String> fa : loads(batcher, 1, 2)) futures.add(fa.toFuture(ec));
+    for (CompletableFuture<String> f : futures) {
+      try {
+        f.get(3, TimeUnit.SECONDS);
+        fail("Should have thrown");
+      } catch (ExecutionException e) {
+        assertEquals(e.getCause(), dummy);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+
+public class AsyncCacheTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void concurrentGetsShareLoader() throws Exception {
+    final AsyncCache<String, Integer> cache = new AsyncCache<>(100);
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    final ArrayList<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      futures.add(cache
+        .get("key", k -> Async.eval(loads::incrementAndGet).delayExecution(Duration.ofMillis(20)))
+        .toFuture(ec));
+    }
+    for (CompletableFuture<Integer> f : futures) {
+      assertEquals(f.get(10L, TimeUnit.SECONDS).intValue(), 1);
+    }
+    assertEquals(loads.get(), 1);
+  }
+
+  @Test public void evictsLeastRecentlyUsed() {
+    final AsyncCache<Integer, Integer> cache = new AsyncCache<>(2);
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    assertEquals(await(cache.get(1, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 1);
+    assertEquals(await(cache.get(2, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 2);
+    // Promotes 1, so 2 gets evicted
+    assertEquals(await(cache.get(1, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 1);
+    assertEquals(await(cache.get(3, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 3);
+    assertEquals(cache.size(), 2);
+    assertEquals(loads.get(), 3);
+
+    assertEquals(await(cache.get(1, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 1);
+    assertEquals(loads.get(), 3);
+    assertEquals(await(cache.get(2, k -> Async.eval(() -> { loads.incrementAndGet(); return k; })), ec).intValue(), 2);
+    assertEquals(loads.get(), 4);
+  }
+
+  @Test public void entriesExpire() throws InterruptedException {
+    final AsyncCache<String, Integer> cache = new AsyncCache<>(100, Duration.ofMillis(100));
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    assertEquals(await(cache.get("key", k -> Async.eval(loads::incrementAndGet)), ec).intValue(), 1);
+    assertEquals(await(cache.get("key", k -> Async.eval(loads::incrementAndGet)), ec).intValue(), 1);
+    Thread.sleep(150);
+    assertEquals(await(cache.get("key", k -> Async.eval(loads::incrementAndGet)), ec).intValue(), 2);
+  }
+
+  @Test public void entriesExpirePerEntryTtl() throws InterruptedException {
+    final AsyncCache<String, Integer> cache = new AsyncCache<>(100, Duration.ofMinutes(1));
+    final AtomicInteger shortLoads = new AtomicInteger(0);
+    final AtomicInteger longLoads = new AtomicInteger(0);
+
+    assertEquals(await(cache.get("short", k -> Async.eval(shortLoads::incrementAndGet), Duration.ofMillis(100)), ec).intValue(), 1);
+    assertEquals(await(cache.get("long", k -> Async.eval(longLoads::incrementAndGet)), ec).intValue(), 1);
+    Thread.sleep(150);
+    assertEquals(await(cache.get("short", k -> Async.eval(shortLoads::incrementAndGet), Duration.ofMillis(100)), ec).intValue(), 2);
+    assertEquals(await(cache.get("long", k -> Async.eval(longLoads::incrementAndGet)), ec).intValue(), 1);
+  }
+
+  @Test public void invalidate() {
+    final AsyncCache<String, Integer> cache = new AsyncCache<>(100);
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    assertEquals(await(cache.get("key", k -> Async.eval(loads::incrementAndGet)), ec).intValue(), 1);
+    cache.invalidate("key");
+    assertEquals(cache.size(), 0);
+    assertEquals(await(cache.get("key", k -> Async.eval(loads::incrementAndGet)), ec).intValue(), 2);
+  }
+}
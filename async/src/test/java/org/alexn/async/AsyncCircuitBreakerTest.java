@@ -0,0 +1,154 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncCircuitBreakerTest {
+  private final AtomicLong time = new AtomicLong(0);
+  private final AsyncCircuitBreaker breaker = new AsyncCircuitBreaker(
+    0.5, 4, Duration.ofSeconds(10), Duration.ofSeconds(5), time::get);
+  private final Async<Integer> success = Async.eval(() -> 1);
+  private final Async<Integer> failure = Async.raiseError(new RuntimeException("dummy"));
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  private Throwable awaitError(Async<Integer> fa) {
+    try {
+      await(fa, ec);
+      fail("Should have thrown");
+      return null;
+    } catch (RuntimeException e) {
+      return e.getCause();
+    }
+  }
+
+  private void open() {
+    for (int i = 0; i < 4; i++) awaitError(breaker.protect(failure));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.OPEN);
+  }
+
+  @Test public void opensOnFailureRate() {
+    await(breaker.protect(success), ec);
+    await(breaker.protect(success), ec);
+    awaitError(breaker.protect(failure));
+    // Below minimumCalls
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+    awaitError(breaker.protect(failure));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.OPEN);
+  }
+
+  @Test public void failsFastWhenOpen() {
+    open();
+    final AtomicInteger calls = new AtomicInteger(0);
+    final Throwable e = awaitError(breaker.protect(Async.eval(calls::incrementAndGet)));
+    assertTrue(e instanceof CircuitBreakerOpenException);
+    assertEquals(calls.get(), 0);
+  }
+
+  @Test public void oldOutcomesLeaveTheWindow() {
+    awaitError(breaker.protect(failure));
+    awaitError(breaker.protect(failure));
+    awaitError(breaker.protect(failure));
+    time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    awaitError(breaker.protect(failure));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+  }
+
+  @Test public void closesAfterSuccessfulTrial() {
+    open();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    assertEquals(await(breaker.protect(success), ec).intValue(), 1);
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+    // Window was reset
+    awaitError(breaker.protect(failure));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+  }
+
+  @Test public void reopensAfterFailedTrial() {
+    open();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    awaitError(breaker.protect(failure));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.OPEN);
+    assertTrue(awaitError(breaker.protect(success)) instanceof CircuitBreakerOpenException);
+  }
+
+  @Test public void allowsSingleTrial() {
+    open();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    final Cancelable trial = breaker.protect(Async.cancelable((ex, cb) -> Cancelable.EMPTY))
+      .runCancelable(ec, new AsyncTest.BlockingCallback<>());
+    // Waiting for the trial to start
+    while (breaker.state() != AsyncCircuitBreaker.State.HALF_OPEN) Thread.yield();
+    assertTrue(awaitError(breaker.protect(success)) instanceof CircuitBreakerOpenException);
+
+    // Canceling the trial allows another one
+    trial.cancel();
+    assertEquals(await(breaker.protect(success), ec).intValue(), 1);
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+  }
+
+  @Test public void abandonsTrialAfterResetTimeout() {
+    open();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    breaker.protect(Async.<Integer>cancelable((ex, cb) -> Cancelable.EMPTY))
+      .run(ec, new AsyncTest.BlockingCallback<>());
+    while (breaker.state() != AsyncCircuitBreaker.State.HALF_OPEN) Thread.yield();
+    assertTrue(awaitError(breaker.protect(success)) instanceof CircuitBreakerOpenException);
+
+    // The trial never completes, another one is allowed
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    assertEquals(await(breaker.protect(success), ec).intValue(), 1);
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.CLOSED);
+  }
+
+  @Test public void abandonedTrialDoesNotAffectCurrentOne() throws InterruptedException {
+    open();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    final AtomicReference<Callback<Integer>> first = new AtomicReference<>();
+    final CountDownLatch firstStarted = new CountDownLatch(1);
+    final Cancelable firstToken = breaker.protect(Async.<Integer>cancelable((ex, cb) -> {
+      first.set(cb);
+      firstStarted.countDown();
+      return Cancelable.EMPTY;
+    })).runCancelable(ec, new AsyncTest.BlockingCallback<>());
+    assertTrue(firstStarted.await(3, TimeUnit.SECONDS));
+
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    final CountDownLatch secondStarted = new CountDownLatch(1);
+    breaker.protect(Async.<Integer>cancelable((ex, cb) -> {
+      secondStarted.countDown();
+      return Cancelable.EMPTY;
+    })).run(ec, new AsyncTest.BlockingCallback<>());
+    assertTrue(secondStarted.await(3, TimeUnit.SECONDS));
+
+    // Neither the release nor the outcome of the first trial count
+    firstToken.cancel();
+    first.get().onError(new RuntimeException("dummy"));
+    assertEquals(breaker.state(), AsyncCircuitBreaker.State.HALF_OPEN);
+    assertTrue(awaitError(breaker.protect(success)) instanceof CircuitBreakerOpenException);
+  }
+}
@@ -0,0 +1,81 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The instrumented tests only run in the `metrics` surefire execution,
+ * which installs {@link AsyncMetricsRecorder}.
+ */
+public class AsyncMetricsTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void histogramIsExactForSmallValues() {
+    final LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) h.record(i);
+    assertEquals(h.count(), 100L);
+    assertEquals(h.valueAtPercentile(50), 50L);
+    assertEquals(h.valueAtPercentile(99), 99L);
+    assertEquals(h.valueAtPercentile(100), 100L);
+  }
+
+  @Test public void histogramRelativeError() {
+    final long[] values = { 128, 1000, 123456, 987654321L, Long.MAX_VALUE / 3, Long.MAX_VALUE };
+    for (long v : values) {
+      final long high = LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(v));
+      assertTrue(high >= v);
+      assertTrue((double) (high - v) / v < 0.016);
+    }
+  }
+
+  @Test public void disabledByDefault() {
+    assumeTrue(System.getProperty("org.alexn.async.metrics") == null);
+    assertEquals(AsyncMetrics.installed(), AsyncMetrics.NOOP);
+  }
+
+  @Test public void recordsExecution() {
+    assumeTrue(AsyncMetrics.installed() instanceof AsyncMetricsRecorder);
+    final AsyncMetricsRecorder m = (AsyncMetricsRecorder) AsyncMetrics.installed();
+
+    final long started = m.tasksStarted();
+    final long errors = m.errors();
+    final long evals = m.evals();
+    final long flatMaps = m.flatMaps();
+    final long parallel = m.parallelTasks();
+
+    final Async<Integer> task = Async.eval(() -> 1).flatMap(a -> Async.eval(() -> a + 1));
+    await(Async.parallel(Arrays.asList(task, task)), ec);
+    try {
+      await(Async.raiseError(new RuntimeException("dummy")), ec);
+    } catch (RuntimeException ignored) {}
+
+    // 1 parallel + 2 children + 1 error
+    assertEquals(m.tasksStarted() - started, 4L);
+    assertEquals(m.errors() - errors, 1L);
+    assertEquals(m.evals() - evals, 4L);
+    assertEquals(m.flatMaps() - flatMaps, 2L);
+    assertEquals(m.parallelTasks() - parallel, 2L);
+    assertTrue(m.scheduleLatency().count() > 0);
+    assertTrue(m.executionLatency().count() >= 4);
+  }
+}
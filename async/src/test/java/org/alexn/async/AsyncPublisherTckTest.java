@@ -0,0 +1,39 @@
+package org.alexn.async;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Reactive Streams TCK for {@link Async#toPublisher(java.util.concurrent.Executor)}. */
+public class AsyncPublisherTckTest extends PublisherVerification<Integer> {
+  private final ExecutorService ec = Executors.newFixedThreadPool(4);
+
+  public AsyncPublisherTckTest() {
+    super(new TestEnvironment(300));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Override
+  public Publisher<Integer> createPublisher(long elements) {
+    // Null results make for empty publishers
+    return Async.eval(() -> elements == 0 ? null : 1).toPublisher(ec);
+  }
+
+  @Override
+  public Publisher<Integer> createFailedPublisher() {
+    return Async.<Integer>raiseError(new RuntimeException("dummy")).toPublisher(ec);
+  }
+
+  @Override
+  public long maxElementsFromPublisher() {
+    return 1;
+  }
+}
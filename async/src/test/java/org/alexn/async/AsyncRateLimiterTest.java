@@ -0,0 +1,71 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRateLimiterTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void burstThenRefill() {
+    final AtomicLong time = new AtomicLong(0);
+    final AsyncRateLimiter limiter = new AsyncRateLimiter(10, 3, false, Scheduler.global(), time::get);
+
+    assertEquals(limiter.available(), 3L);
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+
+    // Never more than the burst
+    time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertEquals(limiter.available(), 3L);
+  }
+
+  private void throttlesRate(boolean fair) {
+    final AsyncRateLimiter limiter = new AsyncRateLimiter(100, 1, fair, Scheduler.global());
+    final List<Async<Long>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) tasks.add(limiter.throttle(Async.eval(System::nanoTime)));
+
+    final long start = System.nanoTime();
+    final List<Long> times = await(Async.parallel(tasks), ec);
+    long last = 0;
+    for (long t : times) last = Math.max(last, t);
+    // 1 immediately, then 9 more at 10 ms intervals
+    assertTrue(last - start >= TimeUnit.MILLISECONDS.toNanos(80));
+  }
+
+  @Test public void throttles() {
+    throttlesRate(false);
+  }
+
+  @Test public void throttlesFairly() {
+    throttlesRate(true);
+  }
+}
@@ -0,0 +1,88 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncSchedulerTest {
+  private AsyncScheduler ec;
+
+  @Before
+  public void setup() {
+    ec = new AsyncScheduler("test", 4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void executesExternalTasks() throws InterruptedException {
+    final int count = 10000;
+    final CountDownLatch latch = new CountDownLatch(count);
+    for (int i = 0; i < count; i++) ec.execute(latch::countDown);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test public void executesTasksSubmittedFromWorkers() throws InterruptedException {
+    final int count = 10000;
+    final CountDownLatch latch = new CountDownLatch(count);
+    // Each task fans out, filling the local queues for others to steal
+    ec.execute(() -> {
+      for (int i = 0; i < count; i++) ec.execute(latch::countDown);
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test public void executesSameTaskResubmittedUnderStealing() throws InterruptedException {
+    for (int round = 0; round < 10; round++) {
+      final int count = 100000;
+      final CountDownLatch latch = new CountDownLatch(count);
+      // The same instance fills the local queue's slots, over and over
+      final Runnable task = latch::countDown;
+      ec.execute(() -> {
+        for (int i = 0; i < count; i++) ec.execute(task);
+      });
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test public void runsAsyncBoundaries() {
+    final List<Async<Integer>> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final int n = i;
+      list.add(Async.shift().flatMap(v -> Async.shift()).map(v -> n));
+    }
+    final List<Integer> result = await(Async.parallel(list), ec);
+    assertEquals(result.size(), 1000);
+    assertEquals(result.get(999).intValue(), 999);
+  }
+
+  @Test public void recoversAfterParking() throws InterruptedException {
+    for (int round = 0; round < 3; round++) {
+      Thread.sleep(20);
+      final AtomicInteger sum = new AtomicInteger(0);
+      final CountDownLatch latch = new CountDownLatch(100);
+      for (int i = 0; i < 100; i++) ec.execute(() -> { sum.incrementAndGet(); latch.countDown(); });
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertEquals(sum.get(), 100);
+    }
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void rejectsAfterShutdown() {
+    ec.shutdown();
+    ec.execute(() -> {});
+  }
+}
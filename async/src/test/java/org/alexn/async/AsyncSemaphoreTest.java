@@ -0,0 +1,160 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncSemaphoreTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void withPermitLimitsConcurrency() {
+    final AsyncSemaphore semaphore = new AsyncSemaphore(3);
+    final AtomicInteger active = new AtomicInteger(0);
+    final AtomicInteger maxActive = new AtomicInteger(0);
+
+    final List<Async<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      final int n = i;
+      tasks.add(semaphore.withPermit(
+        Async.eval(() -> {
+          final int current = active.incrementAndGet();
+          maxActive.accumulateAndGet(current, Math::max);
+          return null;
+        })
+        .flatMap(v -> Async.sleep(Duration.ofMillis(1)))
+        .map(v -> {
+          active.decrementAndGet();
+          return n;
+        })));
+    }
+
+    final List<Integer> result = await(Async.parallel(tasks), ec);
+    assertEquals(result.size(), 50);
+    assertTrue(maxActive.get() <= 3);
+    assertEquals(semaphore.available(), 3L);
+  }
+
+  @Test public void withPermitReleasesOnError() {
+    final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    try {
+      await(semaphore.withPermit(Async.raiseError(new RuntimeException("dummy"))), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException ignored) {}
+    assertEquals(semaphore.available(), 1L);
+  }
+
+  @Test public void acquireWaitsForRelease() throws InterruptedException {
+    final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    assertTrue(semaphore.tryAcquire());
+    assertFalse(semaphore.tryAcquire());
+
+    final AsyncTest.BlockingCallback<Void> cb = new AsyncTest.BlockingCallback<>();
+    semaphore.acquire().run(ec, cb);
+    while (semaphore.waiting() == 0) Thread.sleep(1);
+
+    semaphore.release();
+    cb.get();
+    assertEquals(semaphore.available(), 0L);
+    assertEquals(semaphore.waiting(), 0L);
+  }
+
+  @Test public void canceledWaiterIsSkipped() throws InterruptedException {
+    final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    assertTrue(semaphore.tryAcquire());
+
+    final Cancelable token = semaphore.withPermit(Async.pure(1))
+      .runCancelable(ec, new AsyncTest.BlockingCallback<>());
+    while (semaphore.waiting() == 0) Thread.sleep(1);
+    token.cancel();
+    awaitWaiting(semaphore, 0);
+
+    final AsyncTest.BlockingCallback<Integer> cb = new AsyncTest.BlockingCallback<>();
+    semaphore.withPermit(Async.pure(2)).run(ec, cb);
+    while (semaphore.waiting() == 0) Thread.sleep(1);
+
+    semaphore.release();
+    assertEquals(cb.get().intValue(), 2);
+    while (semaphore.available() != 1) Thread.sleep(1);
+  }
+
+  @Test public void bulkheadRejectsWhenQueueIsFull() throws InterruptedException {
+    final AsyncSemaphore bulkhead = new AsyncSemaphore(1, 1);
+    assertTrue(bulkhead.tryAcquire());
+
+    bulkhead.acquire().run(ec, new AsyncTest.BlockingCallback<>());
+    while (bulkhead.waiting() == 0) Thread.sleep(1);
+
+    try {
+      await(bulkhead.withPermit(Async.pure(1)), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  @Test public void bulkheadAcceptsAfterCanceledWaiter() throws InterruptedException {
+    final AsyncSemaphore bulkhead = new AsyncSemaphore(1, 1);
+    assertTrue(bulkhead.tryAcquire());
+
+    final Cancelable token = bulkhead.acquire().runCancelable(ec, new AsyncTest.BlockingCallback<>());
+    while (bulkhead.waiting() == 0) Thread.sleep(1);
+    token.cancel();
+    awaitWaiting(bulkhead, 0);
+
+    final AsyncTest.BlockingCallback<Integer> cb = new AsyncTest.BlockingCallback<>();
+    bulkhead.withPermit(Async.pure(1)).run(ec, cb);
+    while (bulkhead.waiting() == 0) Thread.sleep(1);
+    bulkhead.release();
+    assertEquals(cb.get().intValue(), 1);
+  }
+
+  @Test public void concurrentCancelsGiveBackSlots() throws InterruptedException {
+    final AsyncSemaphore semaphore = new AsyncSemaphore(2);
+    final List<Cancelable> tokens = new ArrayList<>();
+    final List<AsyncTest.BlockingCallback<Integer>> callbacks = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final int n = i;
+      final AsyncTest.BlockingCallback<Integer> cb = new AsyncTest.BlockingCallback<>();
+      tokens.add(semaphore.withPermit(Async.sleep(Duration.ofMillis(1)).map(v -> n)).runCancelable(ec, cb));
+      callbacks.add(cb);
+    }
+    for (int i = 0; i < tokens.size(); i += 2) tokens.get(i).cancel();
+    for (int i = 1; i < callbacks.size(); i += 2)
+      assertEquals(callbacks.get(i).get().intValue(), i);
+
+    awaitWaiting(semaphore, 0);
+    final long deadline = System.nanoTime() + 3_000_000_000L;
+    while (semaphore.available() != 2 && System.nanoTime() < deadline) Thread.sleep(1);
+    assertEquals(semaphore.available(), 2L);
+  }
+
+  private static void awaitWaiting(AsyncSemaphore semaphore, long expected) throws InterruptedException {
+    final long deadline = System.nanoTime() + 3_000_000_000L;
+    while (semaphore.waiting() != expected && System.nanoTime() < deadline) Thread.sleep(1);
+    assertEquals(semaphore.waiting(), expected);
+  }
+}
@@ -0,0 +1,125 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncStreamTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    AsyncTest.shutdownWhenIdle(ec);
+  }
+
+  private static List<Integer> range(int from, int until) {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = from; i < until; i++) list.add(i);
+    return list;
+  }
+
+  @Test public void mapFilterFold() {
+    final Async<Integer> sum = AsyncStream.fromIterable(range(0, 10))
+      .map(i -> i * 2)
+      .filter(i -> i % 4 == 0)
+      .fold(0, Integer::sum);
+    assertEquals(await(sum, ec).intValue(), 0 + 4 + 8 + 12 + 16);
+  }
+
+  @Test public void infiniteStreamIsStackSafe() {
+    final Async<List<Integer>> fa = AsyncStream.iterate(0, i -> i + 1)
+      .filter(i -> i % 100000 == 0)
+      .take(3)
+      .toList();
+    assertEquals(await(fa, ec), Arrays.asList(0, 100000, 200000));
+  }
+
+  @Test public void takeDoesNotPullMore() {
+    final AtomicInteger pulls = new AtomicInteger(0);
+    final AsyncStream<Integer> stream = AsyncStream.repeat(Async.eval(pulls::incrementAndGet)).take(5);
+    assertEquals(await(stream.toList(), ec), Arrays.asList(1, 2, 3, 4, 5));
+    assertEquals(pulls.get(), 5);
+  }
+
+  @Test public void chunk() {
+    final Async<List<List<Integer>>> fa = AsyncStream.fromIterable(range(0, 7)).chunk(3).toList();
+    assertEquals(await(fa, ec), Arrays.asList(
+      Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5), Collections.singletonList(6)));
+  }
+
+  @Test public void mapAsyncPreservesOrderAndLimitsParallelism() {
+    final AtomicInteger active = new AtomicInteger(0);
+    final AtomicInteger maxActive = new AtomicInteger(0);
+    final Async<List<Integer>> fa = AsyncStream.fromIterable(range(0, 50))
+      .mapAsync(4, i -> Async.eval(() -> {
+          maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+          return i;
+        })
+        // Later elements complete first
+        .flatMap(n -> Async.sleep(Duration.ofMillis(n % 3 == 0 ? 5 : 1)).map(v -> {
+          active.decrementAndGet();
+          return n;
+        })))
+      .toList();
+
+    assertEquals(await(fa, ec), range(0, 50));
+    assertTrue(maxActive.get() <= 4);
+    assertTrue(maxActive.get() > 1);
+  }
+
+  @Test public void mapAsyncSignalsErrors() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final Async<List<Integer>> fa = AsyncStream.fromIterable(range(0, 10))
+      .mapAsync(4, i -> i == 5 ? Async.<Integer>raiseError(dummy) : Async.pure(i))
+      .toList();
+    try {
+      await(fa, ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void merge() {
+    final AsyncStream<Integer> slow = AsyncStream.fromIterable(range(0, 20))
+      .mapAsync(1, i -> Async.pure(i).delayExecution(Duration.ofMillis(1)));
+    final AsyncStream<Integer> fast = AsyncStream.fromIterable(range(100, 150));
+
+    final List<Integer> result = new ArrayList<>(await(slow.merge(fast).toList(), ec));
+    Collections.sort(result);
+    final List<Integer> expected = range(0, 20);
+    expected.addAll(range(100, 150));
+    assertEquals(result, expected);
+  }
+
+  @Test public void mergeSignalsErrors() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final AsyncStream<Integer> failing = () -> Async.raiseError(dummy);
+    final AsyncStream<Integer> infinite = AsyncStream.iterate(0, i -> i + 1);
+    try {
+      await(AsyncStream.merge(Arrays.asList(infinite, failing)).toList(), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+}
@@ -0,0 +1,836 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncTest {
+  private final int count = 10000;
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Test public void eval() {
+    Async<Integer> fa = Async.eval(() -> 1 + 1);
+    assertEquals(await(fa, ec).intValue(), 2);
+    // Repeating the evaluation should yield the same value
+    assertEquals(await(fa, ec).intValue(), 2);
+  }
+
+  /**
+   * TIP: If the `times` equality test fails, it means the returned
+   * instance has shared mutable state, possibly caching the result.
+   *
+   * It shouldn't. `Async` is similar with Java's `Future`, but it
+   * needs to behave like a function that doesn't do any caching.
+   */
+  @Test public void evalIsNotMemoized() {
+    final AtomicInteger times = new AtomicInteger(0);
+    Async<Integer> fa = Async.eval(() -> {
+      times.incrementAndGet();
+      return 1 + 1;
+    });
+
+    assertEquals(await(fa, ec).intValue(), 2);
+    assertEquals(await(fa, ec).intValue(), 2);
+    assertEquals(times.get(), 2);
+  }
+
+  @Test public void toFuture() throws Exception {
+    final AtomicInteger times = new AtomicInteger(0);
+    Async<Integer> task = Async.eval(() -> {
+      times.incrementAndGet();
+      return 1 + 1;
+    });
+
+    assertEquals(task.toFuture(ec).get().intValue(), 2);
+    assertEquals(task.toFuture(ec).get().intValue(), 2);
+    // Should not do memoization
+    assertEquals(times.get(), 2);
+  }
+
+  @Test public void fromFuture() {
+    final AtomicInteger times = new AtomicInteger(0);
+    final Async<Integer> f =
+      Async.fromFuture(() ->
+        CompletableFuture.supplyAsync(times::incrementAndGet, ec)
+      );
+
+    assertEquals(await(f, ec).intValue(), 1);
+    assertEquals(await(f, ec).intValue(), 2);
+    assertEquals(await(f, ec).intValue(), 3);
+  }
+
+  @Test public void fromCompletedFutureIsInline() {
+    final AtomicInteger hops = new AtomicInteger(0);
+    final Executor counting = r -> {
+      hops.incrementAndGet();
+      ec.execute(r);
+    };
+    final Async<Integer> f = Async
+      .fromFuture(() -> CompletableFuture.completedFuture(1))
+      .flatMap(x -> Async.fromFuture(() -> CompletableFuture.completedFuture(x + 1)));
+
+    assertEquals(await(f, counting).intValue(), 2);
+    // Only the start of the run-loop
+    assertEquals(hops.get(), 1);
+  }
+
+  @Test public void fromFailedFuture() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final CompletableFuture<Integer> failed = new CompletableFuture<>();
+    failed.completeExceptionally(dummy);
+
+    try {
+      await(Async.fromFuture(() -> failed), ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void fromDependentFailedFuture() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final CompletableFuture<Integer> upstream = new CompletableFuture<>();
+    final CompletableFuture<Integer> failed = upstream.thenApply(x -> x + 1);
+    upstream.completeExceptionally(dummy);
+
+    try {
+      await(Async.fromFuture(() -> failed), ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void fromDependentFutureFailingLater() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final CompletableFuture<Integer> upstream = new CompletableFuture<>();
+    final Async<Integer> fa = Async.fromFuture(() -> {
+      final CompletableFuture<Integer> dependent = upstream.thenApply(x -> x + 1);
+      ec.execute(() -> upstream.completeExceptionally(dummy));
+      return dependent;
+    });
+
+    try {
+      await(fa, ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void fromFutureToFutureIsNotWrapped() {
+    final CompletableFuture<Integer> source = new CompletableFuture<>();
+    final CompletableFuture<Integer> future = Async.fromFuture(() -> source).toFuture(ec);
+    assertTrue(future == source);
+  }
+
+  @Test public void flatMapReturningNullFails() {
+    try {
+      await(Async.pure(1).flatMap(x -> null), ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof NullPointerException);
+    }
+  }
+
+  @Test public void mapIdentity() {
+    Async<Integer> task = Async
+      .eval(() -> 1 + 1)
+      .map(x -> x);
+
+    assertEquals(await(task, ec).intValue(), 2);
+  }
+
+  @Test public void mapAssociativity() {
+    Async<Integer> lh = Async
+      .eval(() -> 1 + 1)
+      .map(x -> x * 2)
+      .map(x -> x + 2);
+
+    Async<Integer> rh = Async
+      .eval(() -> 1 + 1)
+      .map(x -> x * 2 + 2);
+
+    assertEquals(await(lh, ec).intValue(), await(rh, ec).intValue());
+  }
+
+  /**
+   * TIP: if the above tests don't fail, but this one does, it means
+   * that you haven't used the `executor` for scheduling the transformation
+   * of the result. Use the `executor` to make `map` stack safe.
+   */
+  @Test public void mapIsStackSafe() {
+    final int count = 10000;
+
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < count; i++) {
+      ref = ref.map(x -> x + 1);
+    }
+
+    assertEquals(await(ref, ec).intValue(), count);
+  }
+
+  @Test public void mapIsFused() {
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < count; i++) {
+      ref = ref.map(x -> x + 1);
+    }
+
+    int nodes = 0;
+    Async<?> cursor = ref;
+    while (cursor instanceof AsyncNode.Map) {
+      nodes++;
+      cursor = ((AsyncNode.Map<?, ?>) cursor).source;
+    }
+
+    final int maxDepth = AsyncNode.Map.MAX_FUSION_DEPTH + 1;
+    assertEquals(nodes, (count + maxDepth - 1) / maxDepth);
+    assertEquals(await(ref, ec).intValue(), count);
+  }
+
+  @Test public void flatMapRightIdentity() {
+    Async<Integer> lh = Async
+      .eval(() -> 1 + 1)
+      .flatMap(x -> Async.eval(() -> x));
+
+    assertEquals(await(lh, ec).intValue(), 2);
+  }
+
+  @Test public void flatMapAssociativity() {
+    Async<Integer> lh = Async
+      .eval(() -> 1 + 1)
+      .flatMap(x -> Async.eval(() -> x * 2))
+      .flatMap(x -> Async.eval(() -> x + 2));
+
+    Async<Integer> rh = Async
+      .eval(() -> 1 + 1)
+      .flatMap(x -> Async
+        .eval(() -> x * 2)
+        .flatMap(y -> Async.eval(() -> y + 2)));
+
+    assertEquals(await(lh, ec).intValue(), await(rh, ec).intValue());
+  }
+
+  /**
+   * TIP: if the above tests don't fail, but this one does, it means
+   * that you haven't used the `executor` for scheduling the transformation
+   * of the result. Use the `executor` to make `flatMap` stack safe.
+   */
+  @Test public void flatMapIsStackSafe() {
+    final int count = 10000;
+
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < count; i++) {
+      ref = ref.flatMap(x -> Async.eval(() -> x + 1));
+    }
+
+    assertEquals(await(ref, ec).intValue(), count);
+  }
+
+  /**
+   * The run-loop should not need the `executor` for stack safety,
+   * so this works even with an executor that runs tasks immediately
+   * on the current thread.
+   */
+  @Test public void flatMapIsStackSafeOnCurrentThread() {
+    final Executor direct = Runnable::run;
+
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < count * 10; i++) {
+      ref = ref
+        .flatMap(x -> Async.create((Executor e, Callback<Integer> cb) -> cb.onSuccess(x)))
+        .flatMap(x -> Async.eval(() -> x + 1));
+    }
+
+    assertEquals(await(ref, direct).intValue(), count * 10);
+  }
+
+  @Test public void batchedExecutionCedesToExecutor() {
+    final AtomicInteger submitted = new AtomicInteger(0);
+    final Executor counting = ExecutionModel.batched(100).on(r -> {
+      submitted.incrementAndGet();
+      ec.execute(r);
+    });
+
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < count; i++) {
+      ref = ref.flatMap(x -> Async.eval(() -> x + 1));
+    }
+
+    assertEquals(await(ref, counting).intValue(), count);
+    // One submission for starting, then one for every 100 steps
+    assertEquals(submitted.get(), 1 + count / 100);
+  }
+
+  @Test public void flatMapErrorIsSignaled() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final Async<Integer> task = Async
+      .eval(() -> 1)
+      .<Integer>flatMap(x -> { throw dummy; })
+      .map(x -> x + 1);
+
+    try {
+      await(task, ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test
+  public void sequence() {
+    final ArrayList<Async<Integer>> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(Async.eval(() -> 1 + 1));
+    }
+
+    Async<Integer> sum = Async.sequence(list)
+      .map(l -> l.stream().reduce(0, Integer::sum));
+
+    assertEquals(await(sum, ec).intValue(), count * 2);
+  }
+
+  @Test
+  public void sequenceIsStackSafeAndNotMemoized() {
+    final Executor direct = Runnable::run;
+    final ArrayList<Async<Integer>> list = new ArrayList<>(count * 10);
+    for (int i = 0; i < count * 10; i++) {
+      final int n = i;
+      list.add(Async.eval(() -> n));
+    }
+
+    final Async<List<Integer>> task = Async.sequence(list);
+    for (int run = 0; run < 2; run++) {
+      final List<Integer> result = await(task, direct);
+      assertEquals(result.size(), count * 10);
+      for (int i = 0; i < result.size(); i++) {
+        assertEquals(result.get(i).intValue(), i);
+      }
+    }
+  }
+
+  @Test
+  public void parMap2() throws InterruptedException, ExecutionException {
+    final CountDownLatch workersStarted = new CountDownLatch(2);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final Async<Integer> task = Async.eval(() -> {
+      workersStarted.countDown();
+      try {
+        assertTrue(release.await(10L, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return 10;
+    });
+
+    final CompletableFuture<Integer> result =
+      Async
+        .parMap2(task, task, Integer::sum)
+        .toFuture(ec);
+
+    assertTrue(workersStarted.await(10L, TimeUnit.SECONDS));
+    release.countDown();
+    assertEquals(result.get().intValue(), 20);
+  }
+
+  @Test
+  public void parallel() {
+    final ArrayList<Async<Integer>> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(Async.eval(() -> 1 + 1));
+    }
+
+    Async<Integer> sum = Async.parallel(list)
+      .map(l -> l.stream().reduce(0, Integer::sum));
+
+    assertEquals(await(sum, ec).intValue(), count * 2);
+  }
+
+  @Test
+  public void parallelPreservesOrder() {
+    final ArrayList<Async<Integer>> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final int n = i;
+      list.add(Async.eval(() -> n));
+    }
+
+    final List<Integer> result = await(Async.parallel(list), ec);
+    assertEquals(result.size(), count);
+    for (int i = 0; i < count; i++) {
+      assertEquals(result.get(i).intValue(), i);
+    }
+  }
+
+  @Test
+  public void parallelSignalsFirstError() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final ArrayList<Async<Integer>> list = new ArrayList<>();
+    list.add(Async.eval(() -> 1));
+    list.add(Async.eval(() -> { throw dummy; }));
+    list.add(Async.eval(() -> 3));
+
+    try {
+      await(Async.parallel(list), ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test
+  public void parTraverseNLimitsConcurrency() {
+    final int maxConcurrency = 3;
+    final AtomicInteger active = new AtomicInteger(0);
+    final AtomicInteger maxActive = new AtomicInteger(0);
+    final ArrayList<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 100; i++) list.add(i);
+
+    final Async<List<Integer>> task = Async.parTraverseN(maxConcurrency, list, x ->
+      Async.eval(() -> {
+        final int n = active.incrementAndGet();
+        maxActive.accumulateAndGet(n, Math::max);
+        try { Thread.sleep(1); }
+        catch (InterruptedException e) { throw new RuntimeException(e); }
+        active.decrementAndGet();
+        return x * 2;
+      }));
+
+    final List<Integer> result = await(task, ec);
+    for (int i = 0; i < list.size(); i++) {
+      assertEquals(result.get(i).intValue(), i * 2);
+    }
+    assertTrue(maxActive.get() <= maxConcurrency);
+  }
+
+  @Test
+  public void parTraverseUnorderedN() {
+    final ArrayList<Integer> list = new ArrayList<>();
+    for (int i = 0; i < count; i++) list.add(i);
+
+    final Async<Integer> sum = Async
+      .parTraverseUnorderedN(8, list, x -> Async.eval(() -> x))
+      .fold(0, Integer::sum);
+
+    assertEquals(await(sum, ec).intValue(), count * (count - 1) / 2);
+  }
+
+  @Test
+  public void emptyParallelLists() {
+    assertEquals(await(Async.parallel(Collections.<Async<Integer>>emptyList()), ec), Collections.emptyList());
+    assertEquals(await(Async.parTraverseN(2, Collections.<Integer>emptyList(), Async::pure), ec), Collections.emptyList());
+  }
+
+  @Test
+  public void parTraverseUnorderedNEmitsOnCompletion() {
+    final CompletableFuture<Integer> slow = new CompletableFuture<>();
+    final AsyncStream<Integer> stream = Async.parTraverseUnorderedN(2, Arrays.asList(1, 2), x ->
+      x == 1 ? Async.fromFuture(() -> slow) : Async.eval(() -> x));
+
+    // Available before the slow task completes
+    assertEquals(await(stream.next(), ec), Optional.of(2));
+    slow.complete(1);
+    assertEquals(await(stream.next(), ec), Optional.of(1));
+    assertEquals(await(stream.next(), ec), Optional.empty());
+  }
+
+  @Test
+  public void parTraverseUnorderedNFailsOnNull() throws InterruptedException {
+    final CountDownLatch canceled = new CountDownLatch(1);
+    final CompletableFuture<Integer> started = new CompletableFuture<>();
+    final Async<Integer> never = Async.cancelable((executor, cb) -> {
+      started.complete(1);
+      return canceled::countDown;
+    });
+    // Returning null only once the other task started, for it to be canceled
+    final AsyncStream<Integer> stream = Async.parTraverseUnorderedN(2, Arrays.asList(1, 2), x ->
+      x == 1 ? never : Async.fromFuture(() -> started).map(v -> (Integer) null));
+
+    try {
+      await(stream.next(), ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof NullPointerException);
+    }
+    // The other task in flight got canceled
+    assertTrue(canceled.await(3, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void runCancelableStopsLoop() throws InterruptedException {
+    final AtomicInteger steps = new AtomicInteger(0);
+    final CountDownLatch started = new CountDownLatch(1000);
+    final Async<Integer> loop = loop(steps, started);
+
+    final BlockingCallback<Integer> cb = new BlockingCallback<>();
+    final Cancelable token = loop.runCancelable(ec, cb);
+    assertTrue(started.await(10L, TimeUnit.SECONDS));
+    token.cancel();
+
+    final int after = steps.get();
+    Thread.sleep(100);
+    assertTrue(steps.get() - after <= ExecutionModel.DEFAULT.batchSize());
+    assertEquals(cb.l.getCount(), 1L);
+  }
+
+  private static Async<Integer> loop(AtomicInteger steps, CountDownLatch started) {
+    return Async.eval(() -> {
+      started.countDown();
+      return steps.incrementAndGet();
+    }).flatMap(x -> loop(steps, started));
+  }
+
+  @Test
+  public void parallelCancelsSiblingsOnError() throws Exception {
+    final CompletableFuture<Integer> never = new CompletableFuture<>();
+    final CountDownLatch started = new CountDownLatch(1);
+    final ArrayList<Async<Integer>> list = new ArrayList<>();
+    list.add(Async.fromFuture(() -> {
+      started.countDown();
+      return never;
+    }));
+    list.add(Async.eval(() -> {
+      try {
+        assertTrue(started.await(10L, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      throw new RuntimeException("dummy");
+    }));
+
+    try {
+      await(Async.parallel(list), ec);
+      fail("should have thrown");
+    } catch (RuntimeException ignored) {}
+
+    try {
+      never.get(10L, TimeUnit.SECONDS);
+      fail("should have been canceled");
+    } catch (CancellationException ignored) {}
+  }
+
+  @Test
+  public void toFutureCancellationIsPropagated() throws Exception {
+    final CompletableFuture<Integer> source = new CompletableFuture<>();
+    final CountDownLatch started = new CountDownLatch(1);
+    final Async<Integer> task = Async.fromFuture(() -> {
+      started.countDown();
+      return source;
+    }).map(x -> x + 1);
+
+    final CompletableFuture<Integer> future = task.toFuture(ec);
+    assertTrue(started.await(10L, TimeUnit.SECONDS));
+    future.cancel(false);
+
+    try {
+      source.get(10L, TimeUnit.SECONDS);
+      fail("should have been canceled");
+    } catch (CancellationException ignored) {}
+  }
+
+  @Test
+  public void sleep() {
+    final long start = System.nanoTime();
+    final Async<Integer> task = Async.eval(() -> 1)
+      .delayExecution(Duration.ofMillis(50));
+
+    assertEquals(await(task, ec).intValue(), 1);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void timeoutTo() {
+    final Async<Integer> slow = Async.sleep(Duration.ofSeconds(10)).map(x -> 1);
+    final Async<Integer> task = slow.timeoutTo(Duration.ofMillis(50), Async.pure(2));
+    assertEquals(await(task, ec).intValue(), 2);
+
+    final Async<Integer> fast = Async.pure(1).timeoutTo(Duration.ofSeconds(10), Async.pure(2));
+    assertEquals(await(fast, ec).intValue(), 1);
+  }
+
+  @Test
+  public void timeoutCancelsSource() throws Exception {
+    final CompletableFuture<Integer> never = new CompletableFuture<>();
+    final Async<Integer> task = Async
+      .fromFuture(() -> never)
+      .timeout(Duration.ofMillis(50));
+
+    try {
+      await(task, ec);
+      fail("should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    try {
+      never.get(10L, TimeUnit.SECONDS);
+      fail("should have been canceled");
+    } catch (CancellationException ignored) {}
+  }
+
+  @Test
+  public void callbackSafeIsIdempotent() {
+    final AtomicInteger calls = new AtomicInteger(0);
+    final Callback<Integer> cb = Callback.safe(calls::addAndGet);
+
+    cb.onSuccess(1);
+    cb.onSuccess(2);
+    assertEquals(calls.get(), 1);
+    // Already safe callbacks don't get wrapped again
+    assertTrue(Callback.safe(cb) == cb);
+  }
+
+  @Test
+  public void memoize() throws Exception {
+    final AtomicInteger times = new AtomicInteger(0);
+    final Async<Integer> task = Async
+      .eval(times::incrementAndGet)
+      .delayExecution(Duration.ofMillis(20))
+      .memoize();
+
+    final ArrayList<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) futures.add(task.toFuture(ec));
+    for (CompletableFuture<Integer> f : futures) {
+      assertEquals(f.get(10L, TimeUnit.SECONDS).intValue(), 1);
+    }
+    assertEquals(await(task, ec).intValue(), 1);
+    assertEquals(times.get(), 1);
+  }
+
+  @Test
+  public void cached() throws InterruptedException {
+    final AtomicInteger times = new AtomicInteger(0);
+    final Async<Integer> task = Async
+      .eval(times::incrementAndGet)
+      .cached(Duration.ofMillis(100));
+
+    assertEquals(await(task, ec).intValue(), 1);
+    assertEquals(await(task, ec).intValue(), 1);
+    Thread.sleep(150);
+    assertEquals(await(task, ec).intValue(), 2);
+  }
+
+  @Test
+  public void cachedDoesNotCacheErrors() {
+    final AtomicInteger times = new AtomicInteger(0);
+    final Async<Integer> task = Async
+      .eval(() -> {
+        if (times.incrementAndGet() == 1) throw new RuntimeException("dummy");
+        return times.get();
+      })
+      .cached(Duration.ofSeconds(10));
+
+    try {
+      await(task, ec);
+      fail("should have thrown");
+    } catch (RuntimeException ignored) {}
+    assertEquals(await(task, ec).intValue(), 2);
+    assertEquals(await(task, ec).intValue(), 2);
+  }
+
+  @Test public void blockingShiftsBack() {
+    final Async<String[]> task = Async.blocking(() -> Thread.currentThread().getName())
+      .map(name -> new String[] { name, Thread.currentThread().getName() });
+
+    final String[] names = await(task, ec);
+    assertTrue(names[0].startsWith("async-blocking-"));
+    assertTrue(names[1].startsWith("pool-"));
+  }
+
+  @Test public void evalOnReturnsToOriginalExecutor() {
+    final ExecutorService other = Executors.newSingleThreadExecutor(r -> new Thread(r, "other"));
+    try {
+      final Async<String[]> task = Async.eval(() -> Thread.currentThread().getName())
+        .evalOn(other)
+        .map(name -> new String[] { name, Thread.currentThread().getName() });
+
+      final String[] names = await(task, ec);
+      assertEquals(names[0], "other");
+      assertTrue(names[1].startsWith("pool-"));
+    } finally {
+      other.shutdown();
+    }
+  }
+
+  @Test public void shiftCedesToExecutor() {
+    final ExecutorService single = Executors.newSingleThreadExecutor();
+    try {
+      final List<String> events = new ArrayList<>();
+      final Async<Void> task = Async.<Void>eval(() -> { events.add("first"); return null; })
+        .flatMap(v -> Async.shift())
+        .map(v -> { events.add("third"); return null; });
+
+      // Both submitted by the same task, so the loop starts before "second"
+      final BlockingCallback<Void> cb = new BlockingCallback<>();
+      single.execute(() -> {
+        task.run(single, cb);
+        single.execute(() -> events.add("second"));
+      });
+      cb.get();
+      assertEquals(events, Arrays.asList("first", "second", "third"));
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  @Test public void schedulers() {
+    final String name = await(Async.eval(() -> Thread.currentThread().getName()), Schedulers.compute());
+    assertTrue(name.startsWith("async-compute-"));
+    final String blocking = await(Async.eval(() -> Thread.currentThread().getName()), Schedulers.blocking());
+    assertTrue(blocking.startsWith("async-blocking-"));
+  }
+
+  @Test public void raceCancelsLoser() throws InterruptedException {
+    final CountDownLatch canceled = new CountDownLatch(1);
+    final CompletableFuture<Integer> started = new CompletableFuture<>();
+    final Async<Integer> never = Async.cancelable((executor, cb) -> {
+      started.complete(1);
+      return canceled::countDown;
+    });
+
+    // Winning only once the loser started, otherwise it doesn't get to
+    // register its token, being canceled before it runs
+    assertEquals(await(Async.race(never, Async.fromFuture(() -> started)), ec).intValue(), 1);
+    assertTrue(canceled.await(3, TimeUnit.SECONDS));
+
+    final RuntimeException dummy = new RuntimeException("dummy");
+    try {
+      await(Async.race(never, Async.raiseError(dummy)), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void firstSuccessOf() {
+    final Async<Integer> error = Async.raiseError(new RuntimeException("dummy"));
+    final Async<Integer> slow = Async.eval(() -> 2).delayExecution(Duration.ofMillis(50));
+    assertEquals(await(Async.firstSuccessOf(Arrays.asList(error, slow, error)), ec).intValue(), 2);
+
+    final RuntimeException last = new RuntimeException("last");
+    try {
+      final Async<Integer> slowError = Async.sleep(Duration.ofMillis(20)).flatMap(v -> Async.raiseError(last));
+      await(Async.firstSuccessOf(Arrays.asList(error, slowError)), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), last);
+    }
+  }
+
+  @Test public void hedgeStartsBackupWhenSlow() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = Async.defer(() -> {
+      final int n = attempts.incrementAndGet();
+      // The first attempt is too slow
+      return n == 1
+        ? Async.eval(() -> n).delayExecution(Duration.ofSeconds(2))
+        : Async.pure(n);
+    });
+
+    assertEquals(await(Async.hedge(fa, Duration.ofMillis(20), 3), ec).intValue(), 2);
+    assertEquals(attempts.get(), 2);
+  }
+
+  @Test public void hedgeDoesNotStartBackupWhenFast() throws InterruptedException {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = Async.eval(attempts::incrementAndGet);
+
+    assertEquals(await(Async.hedge(fa, Duration.ofMillis(20), 3), ec).intValue(), 1);
+    Thread.sleep(50);
+    assertEquals(attempts.get(), 1);
+  }
+
+  @Test public void hedgeRetriesErrors() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = Async.defer(() -> attempts.incrementAndGet() < 3
+      ? Async.raiseError(new RuntimeException("dummy"))
+      : Async.pure(attempts.get()));
+
+    assertEquals(await(Async.hedge(fa, Duration.ofSeconds(10), 3), ec).intValue(), 3);
+  }
+
+  @Test public void hedgeCancelsTimerOfFailedAttempt() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = Async.defer(() -> {
+      final int n = attempts.incrementAndGet();
+      // The first attempt fails before its timer fires, the second one
+      // completes within its own delay, but after the first's timer
+      return n == 1
+        ? Async.<Integer>raiseError(new RuntimeException("dummy")).delayExecution(Duration.ofMillis(200))
+        : Async.eval(() -> n).delayExecution(Duration.ofMillis(300));
+    });
+
+    assertEquals(await(Async.hedge(fa, Duration.ofMillis(400), 3), ec).intValue(), 2);
+    assertEquals(attempts.get(), 2);
+  }
+
+  public static <A> A await(Async<A> fa, Executor e) {
+    BlockingCallback<A> cb = new BlockingCallback<>();
+    fa.run(e, cb);
+    return cb.get();
+  }
+
+  /**
+   * Shuts down the pool once idle, such that tasks still completing in
+   * the background, e.g. abandoned by a stream, don't get rejected.
+   */
+  static void shutdownWhenIdle(ExecutorService ec) throws InterruptedException {
+    final ThreadPoolExecutor pool = (ThreadPoolExecutor) ec;
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while ((pool.getActiveCount() > 0 || !pool.getQueue().isEmpty()) && System.nanoTime() < deadline)
+      Thread.sleep(1);
+    pool.shutdown();
+  }
+
+  static class BlockingCallback<A> implements Callback<A> {
+    private A value = null;
+    private Throwable e = null;
+    private final CountDownLatch l;
+
+    public BlockingCallback() {
+      this.l = new CountDownLatch(1);
+    }
+
+    @Override
+    public void onSuccess(A value) {
+      this.value = value;
+      l.countDown();
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      this.e = e;
+      l.countDown();
+    }
+
+    public A get() {
+      try { l.await(3, TimeUnit.SECONDS); }
+      catch (InterruptedException ignored) {}
+      if (e != null) throw new RuntimeException(e);
+      return this.value;
+    }
+  }
+}
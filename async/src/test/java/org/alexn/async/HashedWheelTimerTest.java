@@ -0,0 +1,62 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelTimerTest {
+  private HashedWheelTimer timer;
+
+  @Before
+  public void setup() {
+    // Small wheel, for tasks needing multiple rounds
+    timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 8);
+  }
+
+  @After
+  public void tearDown() {
+    timer.shutdown();
+  }
+
+  @Test public void executesAfterDelay() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final long start = System.nanoTime();
+    timer.schedule(50, TimeUnit.MILLISECONDS, latch::countDown);
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test public void executesInDeadlineOrder() throws InterruptedException {
+    final ConcurrentLinkedQueue<Integer> order = new ConcurrentLinkedQueue<>();
+    final CountDownLatch latch = new CountDownLatch(3);
+    timer.schedule(60, TimeUnit.MILLISECONDS, () -> { order.add(3); latch.countDown(); });
+    timer.schedule(0, TimeUnit.MILLISECONDS, () -> { order.add(1); latch.countDown(); });
+    timer.schedule(20, TimeUnit.MILLISECONDS, () -> { order.add(2); latch.countDown(); });
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertEquals(order.poll().intValue(), 1);
+    assertEquals(order.poll().intValue(), 2);
+    assertEquals(order.poll().intValue(), 3);
+  }
+
+  @Test public void canceledTasksDoNotExecute() throws InterruptedException {
+    final AtomicInteger executed = new AtomicInteger(0);
+    final CountDownLatch latch = new CountDownLatch(1);
+    for (int i = 0; i < 10000; i++) {
+      timer.schedule(20, TimeUnit.MILLISECONDS, executed::incrementAndGet).cancel();
+    }
+    timer.schedule(40, TimeUnit.MILLISECONDS, latch::countDown);
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+    assertEquals(executed.get(), 0);
+  }
+}
@@ -0,0 +1,43 @@
+package org.alexn.async;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.tck.SubscriberBlackboxVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Reactive Streams TCK for the subscriber behind {@link AsyncStream#fromPublisher}. */
+public class PublisherStreamTckTest extends SubscriberBlackboxVerification<Integer> {
+  private final ExecutorService ec = Executors.newFixedThreadPool(4);
+
+  public PublisherStreamTckTest() {
+    super(new TestEnvironment(300));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Override
+  public Subscriber<Integer> createSubscriber() {
+    // Subscribed by the TCK, the stream's own subscription being a no-op
+    final ReactiveStreams.PublisherStream<Integer> stream =
+      new ReactiveStreams.PublisherStream<>(s -> {}, 16);
+    stream.fold(0, (acc, i) -> acc + 1).run(ec, new Callback<Integer>() {
+      @Override
+      public void onSuccess(Integer value) {}
+
+      @Override
+      public void onError(Throwable e) {}
+    });
+    return stream;
+  }
+
+  @Override
+  public Integer createElement(int element) {
+    return element;
+  }
+}
@@ -0,0 +1,124 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReactiveStreamsTest {
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    AsyncTest.shutdownWhenIdle(ec);
+  }
+
+  private static List<Integer> range(int from, int until) {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = from; i < until; i++) list.add(i);
+    return list;
+  }
+
+  @Test public void asyncRoundTrip() {
+    final Publisher<Integer> publisher = Async.eval(() -> 1 + 1).toPublisher(ec);
+    assertEquals(await(Async.fromPublisher(publisher), ec), (Integer) 2);
+  }
+
+  @Test public void fromPublisherTakesFirstElement() {
+    final AtomicInteger pulls = new AtomicInteger(0);
+    final AsyncStream<Integer> source = AsyncStream.iterate(0, i -> i + 1)
+      .map(i -> { pulls.incrementAndGet(); return i; });
+
+    assertEquals(await(Async.fromPublisher(source.toPublisher(ec)), ec), (Integer) 0);
+    assertEquals(pulls.get(), 1);
+  }
+
+  @Test public void fromEmptyPublisher() {
+    final Publisher<Integer> publisher = Async.<Integer>pure(null).toPublisher(ec);
+    try {
+      await(Async.fromPublisher(publisher), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof NoSuchElementException);
+    }
+  }
+
+  @Test public void streamRoundTrip() {
+    final List<Integer> list = range(0, 10000);
+    final Publisher<Integer> publisher = AsyncStream.fromIterable(list).toPublisher(ec);
+    assertEquals(await(AsyncStream.fromPublisher(publisher, 16).toList(), ec), list);
+  }
+
+  @Test public void streamErrorIsPropagated() {
+    final RuntimeException dummy = new RuntimeException("dummy");
+    final AsyncStream<Integer> source = AsyncStream.fromIterable(range(0, 10))
+      .mapAsync(1, i -> i < 5 ? Async.pure(i) : Async.raiseError(dummy));
+    try {
+      await(AsyncStream.fromPublisher(source.toPublisher(ec), 4).toList(), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+  }
+
+  @Test public void demandIsBounded() throws InterruptedException {
+    final AtomicInteger pulls = new AtomicInteger(0);
+    final AsyncStream<Integer> source = AsyncStream.iterate(0, i -> i + 1)
+      .map(i -> { pulls.incrementAndGet(); return i; });
+    final AtomicReference<Subscription> subscription = new AtomicReference<>();
+    final CountDownLatch received = new CountDownLatch(3);
+    source.toPublisher(ec).subscribe(new Subscriber<Integer>() {
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription.set(s);
+        s.request(3);
+      }
+
+      @Override
+      public void onNext(Integer value) {
+        received.countDown();
+      }
+
+      @Override
+      public void onError(Throwable e) {}
+
+      @Override
+      public void onComplete() {}
+    });
+
+    assertTrue(received.await(3, TimeUnit.SECONDS));
+    // Giving the publisher a chance to overproduce
+    Thread.sleep(100);
+    // The requested elements, plus the one pulled ahead
+    assertTrue(pulls.get() <= 3 + 1);
+
+    subscription.get().cancel();
+    subscription.get().request(10);
+    final int seen = pulls.get();
+    Thread.sleep(50);
+    assertEquals(pulls.get(), seen);
+  }
+}
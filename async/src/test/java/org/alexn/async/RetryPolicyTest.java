@@ -0,0 +1,164 @@
+package org.alexn.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.alexn.async.AsyncTest.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+  private final RetryPolicy policy =
+    RetryPolicy.exponentialBackoff(Duration.ofMillis(1), Duration.ofMillis(10));
+  private ExecutorService ec;
+
+  @Before
+  public void setup() {
+    ec = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  private static Async<Integer> failing(AtomicInteger attempts, int failures, Exception e) {
+    return Async.defer(() -> attempts.incrementAndGet() <= failures
+      ? Async.raiseError(e)
+      : Async.pure(attempts.get()));
+  }
+
+  @Test public void delaysGrowExponentiallyUpToMax() {
+    final RetryPolicy p = RetryPolicy.exponentialBackoff(Duration.ofNanos(100), Duration.ofNanos(1000));
+    assertEquals(p.delayNanos(1, 0.999999), 99L);
+    assertEquals(p.delayNanos(2, 0.999999), 199L);
+    assertEquals(p.delayNanos(4, 0.999999), 799L);
+    assertEquals(p.delayNanos(5, 0.999999), 999L);
+    assertEquals(p.delayNanos(1000, 0.999999), 999L);
+    assertEquals(p.delayNanos(3, 0.0), 0L);
+  }
+
+  @Test public void retriesUntilSuccess() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = failing(attempts, 2, new IOException("dummy")).retry(policy);
+    assertEquals(await(fa, ec).intValue(), 3);
+  }
+
+  @Test public void stopsAfterMaxAttempts() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final IOException dummy = new IOException("dummy");
+    final Async<Integer> fa = failing(attempts, 10, dummy).retry(policy.withMaxAttempts(4));
+    try {
+      await(fa, ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertEquals(e.getCause(), dummy);
+    }
+    assertEquals(attempts.get(), 4);
+  }
+
+  @Test public void doesNotRetryUnclassifiedErrors() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final Async<Integer> fa = failing(attempts, 10, new IllegalStateException("dummy"))
+      .retry(policy.retryOn(e -> e instanceof IOException));
+    try {
+      await(fa, ec);
+      fail("Should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    assertEquals(attempts.get(), 1);
+  }
+
+  @Test public void respectsRetryBudget() {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final RetryPolicy p = policy.withMaxAttempts(10).withRetryBudget(new RetryBudget(0, 2));
+    try {
+      await(failing(attempts, 10, new IOException("dummy")).retry(p), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException ignored) {}
+    // First attempt, plus the 2 retries in reserve
+    assertEquals(attempts.get(), 3);
+  }
+
+  @Test public void retryBudgetAccumulatesDeposits() {
+    final RetryBudget budget = new RetryBudget(0.1, 0);
+    final RetryPolicy p = policy.withMaxAttempts(10).withRetryBudget(budget);
+    for (int i = 0; i < 10; i++)
+      assertEquals(await(Async.pure(i).retry(p), ec).intValue(), i);
+
+    final AtomicInteger attempts = new AtomicInteger(0);
+    try {
+      await(failing(attempts, 10, new IOException("dummy")).retry(p), ec);
+      fail("Should have thrown");
+    } catch (RuntimeException ignored) {}
+    // First attempt, plus the single retry paid for by the 10 successes
+    assertEquals(attempts.get(), 2);
+  }
+
+  @Test public void cancelStopsRetries() throws InterruptedException {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final CountDownLatch first = new CountDownLatch(1);
+    final Async<Integer> fa = Async.<Integer>defer(() -> {
+      attempts.incrementAndGet();
+      first.countDown();
+      return Async.raiseError(new IOException("dummy"));
+    }).retry(RetryPolicy.exponentialBackoff(Duration.ofMillis(50), Duration.ofMillis(50)).withMaxAttempts(10));
+
+    final Cancelable token = fa.runCancelable(ec, new AsyncTest.BlockingCallback<>());
+    assertTrue(first.await(3, TimeUnit.SECONDS));
+    token.cancel();
+    // With full jitter the first retry could have already started
+    Thread.sleep(20);
+    final int seen = attempts.get();
+    assertTrue(seen <= 2);
+    Thread.sleep(150);
+    assertEquals(attempts.get(), seen);
+  }
+
+  @Test public void cancelDuringLaterAttemptSkipsCallback() throws InterruptedException {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch canceled = new CountDownLatch(1);
+    final AtomicReference<Callback<Integer>> inFlight = new AtomicReference<>();
+    final Async<Integer> fa = Async.<Integer>defer(() -> attempts.incrementAndGet() < 5
+      ? Async.raiseError(new IOException("dummy"))
+      : Async.cancelable((executor, cb) -> {
+          inFlight.set(cb);
+          started.countDown();
+          return canceled::countDown;
+        })
+    ).retry(RetryPolicy.exponentialBackoff(Duration.ZERO, Duration.ZERO).withMaxAttempts(10));
+
+    final AtomicInteger calls = new AtomicInteger(0);
+    final Cancelable token = fa.runCancelable(ec, new Callback<Integer>() {
+      @Override
+      public void onSuccess(Integer value) {
+        calls.incrementAndGet();
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        calls.incrementAndGet();
+      }
+    });
+    assertTrue(started.await(3, TimeUnit.SECONDS));
+    token.cancel();
+    // The live attempt got canceled, not the token of a previous one
+    assertTrue(canceled.await(3, TimeUnit.SECONDS));
+    inFlight.get().onSuccess(1);
+    Thread.sleep(50);
+    assertEquals(calls.get(), 0);
+  }
+}
@@ -0,0 +1,33 @@
+package org.alexn.async;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Reactive Streams TCK for {@link AsyncStream#toPublisher(java.util.concurrent.Executor)}. */
+public class StreamPublisherTckTest extends PublisherVerification<Long> {
+  private final ExecutorService ec = Executors.newFixedThreadPool(4);
+
+  public StreamPublisherTckTest() {
+    super(new TestEnvironment(300));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    ec.shutdown();
+  }
+
+  @Override
+  public Publisher<Long> createPublisher(long elements) {
+    return AsyncStream.iterate(0L, i -> i + 1).take(elements).toPublisher(ec);
+  }
+
+  @Override
+  public Publisher<Long> createFailedPublisher() {
+    return AsyncStream.repeat(Async.<Long>raiseError(new RuntimeException("dummy"))).toPublisher(ec);
+  }
+}
@@ -0,0 +1,75 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Callback;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the cost of wrapping callbacks with {@link Callback#safe(Callback)},
+ * compared with the previous implementation, which allocated an
+ * `AtomicBoolean` next to the wrapper.
+ *
+ * Wrappers are handed to a `Blackhole`, as in actual usage they escape
+ * to other threads, which prevents the JIT from eliminating allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CallbackBenchmark {
+  private Callback<Integer> underlying;
+  private Callback<Integer> alreadySafe;
+
+  @Setup
+  public void setup(Blackhole bh) {
+    underlying = bh::consume;
+    alreadySafe = Callback.safe(underlying);
+  }
+
+  @Benchmark
+  public void safe(Blackhole bh) {
+    final Callback<Integer> cb = Callback.safe(underlying);
+    bh.consume(cb);
+    cb.onSuccess(1);
+  }
+
+  @Benchmark
+  public void safeOfSafe(Blackhole bh) {
+    final Callback<Integer> cb = Callback.safe(alreadySafe);
+    bh.consume(cb);
+    cb.onSuccess(1);
+  }
+
+  @Benchmark
+  public void atomicBooleanSafe(Blackhole bh) {
+    final Callback<Integer> cb = atomicBooleanSafe(underlying);
+    bh.consume(cb);
+    cb.onSuccess(1);
+  }
+
+  private static <A> Callback<A> atomicBooleanSafe(Callback<A> underlying) {
+    return new Callback<A>() {
+      private final AtomicBoolean wasCalled =
+        new AtomicBoolean(false);
+
+      @Override
+      public void onSuccess(A value) {
+        if (wasCalled.compareAndSet(false, true))
+          underlying.onSuccess(value);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        if (wasCalled.compareAndSet(false, true))
+          underlying.onError(e);
+        else
+          e.printStackTrace();
+      }
+    };
+  }
+}
@@ -0,0 +1,49 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deep `map` and `flatMap` chains, i.e. the run-loop's
+ * throughput on synchronous steps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private Async<Integer> mapChain;
+  private Async<Integer> flatMapChain;
+
+  @Setup
+  public void setup() {
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < size; i++) {
+      ref = ref.map(x -> x + 1);
+    }
+    mapChain = ref;
+
+    ref = Async.eval(() -> 0);
+    for (int i = 0; i < size; i++) {
+      ref = ref.flatMap(x -> Async.eval(() -> x + 1));
+    }
+    flatMapChain = ref;
+  }
+
+  @Benchmark
+  public int map(ExecutorState state) throws Exception {
+    return state.await(mapChain);
+  }
+
+  @Benchmark
+  public int flatMap(ExecutorState state) throws Exception {
+    return state.await(flatMapChain);
+  }
+}
@@ -0,0 +1,71 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.alexn.async.ExecutionModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the run-loop ceding control to the executor
+ * every `batchSize` steps, with `1` being the behaviour of hopping
+ * on every `flatMap` step and `0` never ceding.
+ *
+ * <pre>
+ * $ mvn package &amp;&amp; java -jar benchmarks/target/benchmarks.jar ExecutionModelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ExecutionModelBenchmark {
+  @Param({"1", "512", "1024", "0"})
+  public int batchSize;
+
+  @Param({"10000"})
+  public int size;
+
+  private ExecutorService pool;
+  private Executor executor;
+  private Async<Integer> flatMapLoop;
+  private Async<Integer> mapLoop;
+
+  @Setup
+  public void setup() {
+    pool = Executors.newFixedThreadPool(4);
+    executor = ExecutionModel.batched(batchSize).on(pool);
+
+    Async<Integer> ref = Async.eval(() -> 0);
+    for (int i = 0; i < size; i++) {
+      ref = ref.flatMap(x -> Async.eval(() -> x + 1));
+    }
+    flatMapLoop = ref;
+
+    ref = Async.eval(() -> 0);
+    for (int i = 0; i < size; i++) {
+      ref = ref.map(x -> x + 1);
+    }
+    mapLoop = ref;
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public int flatMap() throws Exception {
+    return flatMapLoop.toFuture(executor).get();
+  }
+
+  @Benchmark
+  public int map() throws Exception {
+    return mapLoop.toFuture(executor).get();
+  }
+}
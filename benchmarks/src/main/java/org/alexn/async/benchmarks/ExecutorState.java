@@ -0,0 +1,79 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.alexn.async.AsyncScheduler;
+import org.alexn.async.Callback;
+import org.alexn.async.ExecutionModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Provides the `Executor` that benchmarks run on, with every
+ * benchmark being executed for each kind of executor.
+ */
+@State(Scope.Benchmark)
+public class ExecutorState {
+  @Param({"fixed", "cached", "forkJoin", "asyncScheduler", "direct"})
+  public String kind;
+
+  public Executor executor;
+  private ExecutorService pool;
+  private AsyncScheduler scheduler;
+
+  @Setup
+  public void setup() {
+    switch (kind) {
+      case "fixed":
+        pool = Executors.newFixedThreadPool(4);
+        break;
+      case "cached":
+        pool = Executors.newCachedThreadPool();
+        break;
+      case "forkJoin":
+        pool = new ForkJoinPool(4);
+        break;
+      case "asyncScheduler":
+        scheduler = new AsyncScheduler("bench", 4);
+        executor = scheduler;
+        return;
+      case "direct":
+        // Ceding would only nest the run-loop on the same call-stack
+        executor = ExecutionModel.SYNCHRONOUS.on(Runnable::run);
+        return;
+      default:
+        throw new IllegalArgumentException("Unknown executor: " + kind);
+    }
+    executor = pool;
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (pool != null) pool.shutdown();
+    if (scheduler != null) scheduler.shutdown();
+  }
+
+  /** Runs `fa`, blocking for its result, without going through `toFuture`. */
+  public <A> A await(Async<A> fa) throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Object[] result = new Object[2];
+    fa.run(executor, new Callback<A>() {
+      @Override
+      public void onSuccess(A value) {
+        result[0] = value;
+        latch.countDown();
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        result[1] = e;
+        latch.countDown();
+      }
+    });
+    latch.await();
+    if (result[1] != null) throw new ExecutionException((Throwable) result[1]);
+    @SuppressWarnings("unchecked")
+    final A value = (A) result[0];
+    return value;
+  }
+}
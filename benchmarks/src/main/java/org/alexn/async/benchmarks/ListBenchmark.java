@@ -0,0 +1,46 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Async#sequence(List)} and {@link Async#parallel(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ListBenchmark {
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private Async<List<Integer>> sequence;
+  private Async<List<Integer>> parallel;
+
+  @Setup
+  public void setup() {
+    final List<Async<Integer>> tasks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final int n = i;
+      tasks.add(Async.eval(() -> n));
+    }
+    sequence = Async.sequence(tasks);
+    parallel = Async.parallel(tasks);
+  }
+
+  @Benchmark
+  public List<Integer> sequence(ExecutorState state) throws Exception {
+    return state.await(sequence);
+  }
+
+  @Benchmark
+  public List<Integer> parallel(ExecutorState state) throws Exception {
+    return state.await(parallel);
+  }
+}
@@ -0,0 +1,22 @@
+package org.alexn.async.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of `benchmarks.jar`, accepting the usual JMH
+ * command-line options, with the GC profiler always enabled,
+ * for making allocation regressions visible.
+ */
+public class Main {
+  public static void main(String[] args) throws Exception {
+    final Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,70 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Async#parallel(List)} with the alternative of
+ * folding the list with {@link Async#parMap2}, which builds a tree
+ * of intermediate `Async` values and lists.
+ *
+ * <pre>
+ * $ mvn package &amp;&amp; java -jar benchmarks/target/benchmarks.jar ParallelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+  @Param({"10", "1000", "10000"})
+  public int size;
+
+  private ExecutorService pool;
+  private List<Async<Integer>> tasks;
+
+  @Setup
+  public void setup() {
+    pool = Executors.newFixedThreadPool(4);
+    tasks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final int n = i;
+      tasks.add(Async.eval(() -> n));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<Integer> parallel() throws Exception {
+    return Async.parallel(tasks).toFuture(pool).get();
+  }
+
+  @Benchmark
+  public List<Integer> parMap2Fold() throws Exception {
+    return parMap2Fold(tasks).toFuture(pool).get();
+  }
+
+  private static <A> Async<List<A>> parMap2Fold(List<Async<A>> list) {
+    Async<List<A>> acc = Async.pure(new ArrayList<>());
+    for (final Async<A> fa : list) {
+      acc = Async.parMap2(acc, fa, (xs, x) -> {
+        final List<A> ys = new ArrayList<>(xs);
+        ys.add(x);
+        return ys;
+      });
+    }
+    return acc;
+  }
+}
@@ -0,0 +1,42 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.alexn.async.AsyncStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Reactive Streams adapters, by converting a stream to a
+ * `Publisher` and back, compared with consuming the stream directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactiveStreamsBenchmark {
+  @Param({"10000000"})
+  public long size;
+
+  @Param({"256"})
+  public int bufferSize;
+
+  private AsyncStream<Long> source() {
+    return AsyncStream.iterate(0L, i -> i + 1).take(size);
+  }
+
+  @Benchmark
+  public Long direct(ExecutorState state) throws Exception {
+    return state.await(source().fold(0L, Long::sum));
+  }
+
+  @Benchmark
+  public Long roundTrip(ExecutorState state) throws Exception {
+    final Async<Long> sum = AsyncStream
+      .fromPublisher(source().toPublisher(state.executor), bufferSize)
+      .fold(0L, Long::sum);
+    return state.await(sum);
+  }
+}
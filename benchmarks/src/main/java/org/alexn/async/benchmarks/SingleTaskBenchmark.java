@@ -0,0 +1,49 @@
+package org.alexn.async.benchmarks;
+
+import org.alexn.async.Async;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of executing single tasks, i.e. the cost
+ * of starting the run-loop and of async boundaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SingleTaskBenchmark {
+  private final Async<Integer> eval = Async.eval(() -> 1);
+  private final Async<Integer> parMap2 = Async.parMap2(eval, eval, Integer::sum);
+
+  @Benchmark
+  public int eval(ExecutorState state) throws Exception {
+    return state.await(eval);
+  }
+
+  @Benchmark
+  public int parMap2(ExecutorState state) throws Exception {
+    return state.await(parMap2);
+  }
+
+  @Benchmark
+  public int toFuture(ExecutorState state) throws Exception {
+    return eval.toFuture(state.executor).get();
+  }
+
+  @Benchmark
+  public int fromFuture(ExecutorState state) throws Exception {
+    return state.await(Async.fromFuture(() ->
+      CompletableFuture.supplyAsync(() -> 1, state.executor)));
+  }
+
+  @Benchmark
+  public int fromCompletedFuture(ExecutorState state) throws Exception {
+    return state.await(Async.fromFuture(() ->
+      CompletableFuture.completedFuture(1)));
+  }
+}